@@ -0,0 +1,247 @@
+package com.hidoc.api.admission;
+
+import com.hidoc.api.config.AdmissionProperties;
+import com.hidoc.api.exception.OverloadedException;
+import com.hidoc.api.util.CancellationToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Bounds how much work of one kind runs at once. Up to {@code max-concurrent} requests run; the rest wait in
+ * a bounded queue per {@link RequestPriority}. When a request finishes, the next one is taken from the
+ * queues by smooth weighted round-robin, so every class keeps moving but interactive work gets most of the
+ * freed slots. A request whose queue is full, or that waits longer than {@code max-queue-wait-ms}, fails with
+ * {@link OverloadedException} instead of piling up.
+ */
+public class AdmissionController implements MeterBinder {
+
+    private static final RequestPriority[] CLASSES = RequestPriority.values();
+
+    private final String gate;
+    private final int maxConcurrent;
+    private final long maxQueueWaitMs;
+    private final long retryAfterSeconds;
+    private final int[] capacity = new int[CLASSES.length];
+    private final int[] weight = new int[CLASSES.length];
+    // Guarded by this
+    private final ArrayDeque<CompletableFuture<Void>>[] queues;
+    private final int[] credit = new int[CLASSES.length];
+    private int active;
+
+    private final Map<RequestPriority, Counter> shed = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public AdmissionController(String gate, AdmissionProperties.Gate settings) {
+        this.gate = gate;
+        this.maxConcurrent = Math.max(1, settings.getMaxConcurrent());
+        this.maxQueueWaitMs = settings.getMaxQueueWaitMs();
+        this.retryAfterSeconds = Math.max(1, settings.getRetryAfterSeconds());
+        this.queues = new ArrayDeque[CLASSES.length];
+        for (RequestPriority p : CLASSES) {
+            AdmissionProperties.Queue q = settings.queue(p);
+            capacity[p.ordinal()] = Math.max(0, q.getCapacity());
+            weight[p.ordinal()] = Math.max(1, q.getWeight());
+            queues[p.ordinal()] = new ArrayDeque<>();
+        }
+    }
+
+    /** No limit: every request is admitted at once. */
+    public static AdmissionController unlimited(String gate) {
+        AdmissionProperties.Gate settings = new AdmissionProperties.Gate(Integer.MAX_VALUE);
+        return new AdmissionController(gate, settings);
+    }
+
+    /**
+     * Starts {@code work} once admitted and releases the slot when its future completes. Cancelling the
+     * returned future while it is queued gives up the place in the queue; after that it cancels the work.
+     */
+    public <T> CompletableFuture<T> admit(RequestPriority priority, Supplier<CompletableFuture<T>> work) {
+        CompletableFuture<Void> slot = acquire(priority);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        slot.whenComplete((v, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(rejection(priority, ex));
+                return;
+            }
+            if (result.isDone()) {
+                // Given up while queued, but admitted before it could leave the queue
+                release();
+                return;
+            }
+            CompletableFuture<T> w;
+            try {
+                w = work.get();
+            } catch (RuntimeException e) {
+                w = CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<T> running = w;
+            running.whenComplete((r, e) -> {
+                release();
+                if (e != null) result.completeExceptionally(e);
+                else result.complete(r);
+            });
+            result.whenComplete((r, e) -> {
+                if (!running.isDone()) running.cancel(true);
+            });
+        });
+        result.whenComplete((r, ex) -> {
+            if (!slot.isDone()) slot.cancel(false);
+        });
+        return result;
+    }
+
+    /**
+     * Blocks until admitted and returns the release action, which must be run exactly once. Waiting stops
+     * early when {@code cancellation} is cancelled.
+     */
+    public Runnable enter(RequestPriority priority, CancellationToken cancellation) {
+        CompletableFuture<Void> slot = acquire(priority);
+        Runnable unregister = cancellation == null ? () -> {} : cancellation.onCancel(() -> slot.cancel(false));
+        try {
+            slot.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Admitted in the meantime: give the slot back
+            if (!slot.cancel(false) && !slot.isCompletedExceptionally()) release();
+            throw new CancellationException("Interrupted while waiting for admission");
+        } catch (CancellationException e) {
+            throw new CancellationException(cancellation != null && cancellation.isCancelled()
+                    ? cancellation.reason() : "Cancelled while waiting for admission");
+        } catch (ExecutionException e) {
+            throw rejection(priority, e.getCause());
+        } finally {
+            unregister.run();
+        }
+        return new Runnable() {
+            private boolean released;
+
+            @Override
+            public synchronized void run() {
+                if (released) return;
+                released = true;
+                release();
+            }
+        };
+    }
+
+    private CompletableFuture<Void> acquire(RequestPriority priority) {
+        int i = priority.ordinal();
+        CompletableFuture<Void> waiter;
+        synchronized (this) {
+            if (active < maxConcurrent && queued() == 0) {
+                active++;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (queues[i].size() >= capacity[i]) {
+                return CompletableFuture.failedFuture(overloaded(priority, "queue is full"));
+            }
+            waiter = new CompletableFuture<>();
+            queues[i].add(waiter);
+        }
+        waiter.whenComplete((v, ex) -> {
+            if (ex != null) {
+                synchronized (this) {
+                    queues[i].remove(waiter);
+                }
+            }
+        });
+        if (maxQueueWaitMs > 0) {
+            waiter.orTimeout(maxQueueWaitMs, TimeUnit.MILLISECONDS);
+        }
+        return waiter;
+    }
+
+    private void release() {
+        CompletableFuture<Void> next;
+        synchronized (this) {
+            next = nextWaiter();
+            if (next == null) {
+                active--;
+                return;
+            }
+        }
+        // The waiter may have timed out or been cancelled since it was taken; hand the slot on instead
+        if (!next.complete(null)) {
+            release();
+        }
+    }
+
+    // Smooth weighted round-robin over the non-empty queues
+    private CompletableFuture<Void> nextWaiter() {
+        while (true) {
+            int best = -1;
+            int total = 0;
+            for (int i = 0; i < queues.length; i++) {
+                if (queues[i].isEmpty()) {
+                    credit[i] = 0;
+                    continue;
+                }
+                credit[i] += weight[i];
+                total += weight[i];
+                if (best < 0 || credit[i] > credit[best]) best = i;
+            }
+            if (best < 0) return null;
+            credit[best] -= total;
+            CompletableFuture<Void> w = queues[best].poll();
+            if (!w.isDone()) return w;
+        }
+    }
+
+    private int queued() {
+        int n = 0;
+        for (ArrayDeque<CompletableFuture<Void>> q : queues) n += q.size();
+        return n;
+    }
+
+    private synchronized int queued(RequestPriority priority) {
+        return queues[priority.ordinal()].size();
+    }
+
+    private synchronized int active() {
+        return active;
+    }
+
+    private RuntimeException rejection(RequestPriority priority, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof TimeoutException) return overloaded(priority, "waited too long");
+        if (cause instanceof RuntimeException re) return re;
+        return new CompletionException(cause);
+    }
+
+    private OverloadedException overloaded(RequestPriority priority, String why) {
+        Counter c = shed.get(priority);
+        if (c != null) c.increment();
+        return new OverloadedException("Server busy (" + gate + ", " + priority.name().toLowerCase(Locale.ROOT) + " " + why
+                + "); retry later", retryAfterSeconds);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("admission.active", this, AdmissionController::active)
+                .tag("gate", gate)
+                .register(registry);
+        for (RequestPriority p : CLASSES) {
+            String priority = p.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("admission.queued", this, c -> c.queued(p))
+                    .tag("gate", gate).tag("priority", priority)
+                    .register(registry);
+            shed.put(p, Counter.builder("admission.shed")
+                    .tag("gate", gate).tag("priority", priority)
+                    .register(registry));
+        }
+    }
+}
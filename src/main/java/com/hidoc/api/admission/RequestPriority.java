@@ -0,0 +1,23 @@
+package com.hidoc.api.admission;
+
+import java.util.Locale;
+
+/** Admission class of a request; see {@link AdmissionController}. */
+public enum RequestPriority {
+    /** A user is waiting on the answer, e.g. /api/ai/chat. */
+    INTERACTIVE,
+    /** Agent and MCP work nobody is watching in real time. */
+    BACKGROUND,
+    /** Bulk jobs such as analytics; first to be shed. */
+    BATCH;
+
+    /** Parses a priority name case-insensitively, falling back to {@code fallback} for anything else. */
+    public static RequestPriority parse(String value, RequestPriority fallback) {
+        if (value == null || value.isBlank()) return fallback;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.hidoc.api.ai.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hidoc.api.admission.RequestPriority;
 import com.hidoc.api.ai.AIProvider;
+import com.hidoc.api.util.CancellationToken;
 
+import java.time.Instant;
 import java.util.Map;
 
 public class AIRequest {
@@ -10,6 +14,15 @@ public class AIRequest {
     private String userId;
     private String email; // optional: prefer for usage tracking
     private Map<String, Object> metadata;
+    private String tool; // optional: MCP tool that issued the request, for usage analytics
+    // In-process only: lets the provider call stop when the MCP call that issued it is abandoned
+    @JsonIgnore
+    private CancellationToken cancellation;
+    @JsonIgnore
+    private Instant deadline;
+    // Admission class for the provider call; interactive when not set
+    @JsonIgnore
+    private RequestPriority priority;
 
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
@@ -25,4 +38,16 @@ public class AIRequest {
 
     public Map<String, Object> getMetadata() { return metadata; }
     public void setMetadata(Map<String, Object> metadata) { this.metadata = metadata; }
+
+    public String getTool() { return tool; }
+    public void setTool(String tool) { this.tool = tool; }
+
+    public CancellationToken getCancellation() { return cancellation; }
+    public void setCancellation(CancellationToken cancellation) { this.cancellation = cancellation; }
+
+    public Instant getDeadline() { return deadline; }
+    public void setDeadline(Instant deadline) { this.deadline = deadline; }
+
+    public RequestPriority getPriority() { return priority; }
+    public void setPriority(RequestPriority priority) { this.priority = priority; }
 }
\ No newline at end of file
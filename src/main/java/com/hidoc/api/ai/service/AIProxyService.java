@@ -1,10 +1,14 @@
 package com.hidoc.api.ai.service;
 
+import com.hidoc.api.admission.AdmissionController;
+import com.hidoc.api.admission.RequestPriority;
 import com.hidoc.api.ai.AIProvider;
 import com.hidoc.api.ai.model.AIRequest;
 import com.hidoc.api.ai.model.AIResponse;
 import com.hidoc.api.exception.RateLimitExceededException;
 import com.hidoc.api.service.RateLimitingService;
+import com.hidoc.api.service.UsageHistogramRecorder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.util.EnumMap;
@@ -16,12 +20,18 @@ public class AIProxyService {
 
     private final Map<AIProvider, AIService> providers = new EnumMap<>(AIProvider.class);
     private final RateLimitingService rateLimitingService;
+    private final UsageHistogramRecorder histograms;
+    private final AdmissionController admission;
 
-    public AIProxyService(List<AIService> providerBeans, RateLimitingService rateLimitingService) {
+    public AIProxyService(List<AIService> providerBeans, RateLimitingService rateLimitingService,
+                          UsageHistogramRecorder histograms,
+                          @Qualifier("providerAdmission") AdmissionController admission) {
         for (AIService svc : providerBeans) {
             providers.put(svc.provider(), svc);
         }
         this.rateLimitingService = rateLimitingService;
+        this.histograms = histograms;
+        this.admission = admission;
     }
 
     public AIResponse process(AIRequest request) {
@@ -38,6 +48,10 @@ public class AIProxyService {
         if (provider == null) {
             throw new IllegalArgumentException("provider is required");
         }
+        // Abandoned before it started: neither count it against the quota nor call the provider
+        if (request.getCancellation() != null) {
+            request.getCancellation().throwIfCancelled();
+        }
 
         boolean allowed;
         if (email != null && !email.isBlank()) {
@@ -54,20 +68,30 @@ public class AIProxyService {
             throw new RateLimitExceededException("Monthly request limit exceeded");
         }
 
+        // Queue for a provider slot; shed requests are not recorded as provider calls
+        Runnable release = admission.enter(
+                request.getPriority() == null ? RequestPriority.INTERACTIVE : request.getPriority(),
+                request.getCancellation());
         boolean success = false;
         String error = null;
+        long start = System.nanoTime();
+        AIResponse resp = null;
         try {
             AIService svc = providers.get(provider);
             if (svc == null) {
                 throw new IllegalArgumentException("Unsupported provider: " + provider);
             }
-            AIResponse resp = svc.chat(request);
+            resp = svc.chat(request);
             success = true;
             return resp;
         } catch (RuntimeException ex) {
             error = ex.getMessage();
             throw ex;
         } finally {
+            release.run();
+            if (providers.containsKey(provider)) {
+                recordHistograms(request, provider, resp, System.nanoTime() - start);
+            }
             if (email != null && !email.isBlank()) {
                 rateLimitingService.recordRequestByEmail(email, provider.name(), success, error);
             } else {
@@ -75,4 +99,13 @@ public class AIProxyService {
             }
         }
     }
+
+    private void recordHistograms(AIRequest request, AIProvider provider, AIResponse resp, long elapsedNanos) {
+        String model = resp != null && resp.getModel() != null ? resp.getModel() : "unknown";
+        String tool = request.getTool() != null ? request.getTool() : "api";
+        histograms.recordLatency(provider.name(), model, tool, elapsedNanos / 1_000_000);
+        if (resp != null && resp.getTokensUsed() != null) {
+            histograms.recordTokens(provider.name(), model, tool, resp.getTokensUsed());
+        }
+    }
 }
@@ -20,13 +20,18 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 @Service
 public class OpenAIService implements AIService {
 
     private static final Logger log = LoggerFactory.getLogger(OpenAIService.class);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
 
     private final AIProvidersProperties.ProviderConfig cfg;
     private final ObjectMapper objectMapper = new ObjectMapper();
@@ -67,14 +72,14 @@ public class OpenAIService implements AIService {
 
             HttpRequest httpReq = HttpRequest.newBuilder()
                     .uri(URI.create(url))
-                    .timeout(Duration.ofSeconds(30))
+                    .timeout(timeout(request))
                     .header("Authorization", "Bearer " + cfg.getApiKey())
                     .header("Content-Type", "application/json")
                     .POST(HttpRequest.BodyPublishers.ofString(json))
                     .build();
 
             log.info("[OpenAI] Sending chat request model={} length={} user_id={}...", cfg.getModel(), prompt.length(), request.getUserId());
-            HttpResponse<String> httpResp = httpClient.send(httpReq, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> httpResp = send(httpReq, request);
             long took = System.currentTimeMillis() - start;
             if (httpResp.statusCode() / 100 != 2) {
                 log.warn("[OpenAI] Non-2xx response status={} body={} ({} ms)", httpResp.statusCode(), truncate(httpResp.body(), 500), took);
@@ -97,6 +102,9 @@ public class OpenAIService implements AIService {
             return out;
         } catch (AIServiceUnavailableException ex) {
             throw ex;
+        } catch (CancellationException ex) {
+            log.info("[OpenAI] Request cancelled after {} ms: {}", System.currentTimeMillis() - start, ex.getMessage());
+            throw ex;
         } catch (Exception ex) {
             long took = System.currentTimeMillis() - start;
             log.error("[OpenAI] Request failed after {} ms: {}", took, ex.toString());
@@ -104,6 +112,34 @@ public class OpenAIService implements AIService {
         }
     }
 
+    // The 30 s request timeout, cut short by the caller's deadline
+    private static Duration timeout(AIRequest request) {
+        Duration timeout = REQUEST_TIMEOUT;
+        if (request.getDeadline() != null) {
+            Duration left = Duration.between(Instant.now(), request.getDeadline());
+            if (left.isNegative() || left.isZero()) {
+                throw new CancellationException("Deadline exceeded");
+            }
+            if (left.compareTo(timeout) < 0) timeout = left;
+        }
+        return timeout;
+    }
+
+    // Sent asynchronously so a cancelled caller can abort the exchange instead of waiting for the reply
+    private HttpResponse<String> send(HttpRequest httpReq, AIRequest request) throws Exception {
+        CompletableFuture<HttpResponse<String>> exchange = httpClient.sendAsync(httpReq, HttpResponse.BodyHandlers.ofString());
+        Runnable unregister = request.getCancellation() == null
+                ? () -> {}
+                : request.getCancellation().onCancel(() -> exchange.cancel(true));
+        try {
+            return exchange.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            unregister.run();
+        }
+    }
+
     private void validateConfigured() {
         if (!StringUtils.hasText(cfg.getApiKey())) {
             throw new IllegalStateException("OpenAI API key not configured");
@@ -0,0 +1,45 @@
+package com.hidoc.api.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.UUID;
+
+/**
+ * Broadcasts near-cache invalidations over Redis pub/sub.
+ *
+ * Message format: {@code <origin> <op> <cacheName> [<key>]} where op is E (evict key) or C (clear cache).
+ * The origin lets each instance ignore its own messages, since it has already updated its near-cache.
+ */
+public class CacheInvalidationPublisher {
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationPublisher.class);
+
+    public static final String CHANNEL = "hidoc:cache:invalidate";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public CacheInvalidationPublisher(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public String getInstanceId() { return instanceId; }
+
+    public void publishEvict(String cacheName, String key) {
+        send(instanceId + " E " + cacheName + " " + key);
+    }
+
+    public void publishClear(String cacheName) {
+        send(instanceId + " C " + cacheName);
+    }
+
+    private void send(String message) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message);
+        } catch (RuntimeException ex) {
+            // Other instances fall back to near-cache TTL expiry
+            log.warn("Cache invalidation broadcast failed: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.hidoc.api.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+
+/**
+ * Compact Redis value codec: Jackson Smile bound to a single declared type, so no class names are
+ * embedded in the payload. Cached nulls never reach this codec; RedisCache stores its own marker for them.
+ */
+public class SmileRedisSerializer implements RedisSerializer<Object> {
+
+    private final ObjectMapper smileMapper;
+    private final Class<?> type;
+
+    public SmileRedisSerializer(ObjectMapper smileMapper, Class<?> type) {
+        this.smileMapper = smileMapper;
+        this.type = type;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) return new byte[0];
+        try {
+            return smileMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write " + type.getSimpleName() + " as Smile", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) return null;
+        try {
+            return smileMapper.readValue(bytes, type);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read Smile as " + type.getSimpleName(), e);
+        }
+    }
+}
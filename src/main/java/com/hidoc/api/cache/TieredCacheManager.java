@@ -0,0 +1,134 @@
+package com.hidoc.api.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hidoc.api.config.CachingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.cache.RedisCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache manager that builds each cache according to its {@link CachingProperties.Spec}: in-heap only,
+ * Redis only, or an in-heap near-cache in front of Redis. Invalidations received from other instances
+ * are applied to the in-heap tiers. Every tier is bound to Micrometer, tagged with {@code tier}.
+ */
+public class TieredCacheManager implements CacheManager, MessageListener, MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(TieredCacheManager.class);
+
+    private final CacheManager remoteManager;
+    private final CacheInvalidationPublisher publisher;
+    private final CachingProperties props;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
+
+    public TieredCacheManager(CacheManager remoteManager, CacheInvalidationPublisher publisher, CachingProperties props) {
+        this.remoteManager = remoteManager;
+        this.publisher = publisher;
+        this.props = props;
+        // Create configured caches up front so they show up in actuator before first use
+        for (String name : props.getSpecs().keySet()) {
+            getCache(name);
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private Cache createCache(String name) {
+        CachingProperties.Spec spec = props.getSpecs().getOrDefault(name, new CachingProperties.Spec());
+        Cache cache = switch (spec.getTier()) {
+            case REDIS -> remoteCache(name);
+            case LOCAL -> new TwoTierCache(name, localCache(spec, localTtl(spec)), null, publisher);
+            case TWO_TIER -> new TwoTierCache(name, localCache(spec, nearTtl(spec)), remoteCache(name), publisher);
+        };
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            bind(registry, cache);
+        }
+        return cache;
+    }
+
+    private Cache remoteCache(String name) {
+        Cache remote = remoteManager.getCache(name);
+        if (remote == null) {
+            throw new IllegalStateException("No remote cache available for " + name);
+        }
+        return remote;
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<String, Cache.ValueWrapper> localCache(CachingProperties.Spec spec,
+                                                                                          Duration ttl) {
+        long maxEntries = spec.getMaxEntries() != null ? spec.getMaxEntries() : props.getNear().getMaximumSize();
+        return Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    private Duration nearTtl(CachingProperties.Spec spec) {
+        long seconds = spec.getNearTtlSeconds() != null ? spec.getNearTtlSeconds() : props.getNear().getTtlSeconds();
+        return Duration.ofSeconds(seconds);
+    }
+
+    private Duration localTtl(CachingProperties.Spec spec) {
+        if (spec.getNearTtlSeconds() == null && spec.getTtlSeconds() != null) {
+            return Duration.ofSeconds(spec.getTtlSeconds());
+        }
+        return nearTtl(spec);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        caches.values().forEach(cache -> bind(registry, cache));
+    }
+
+    private void bind(MeterRegistry registry, Cache cache) {
+        if (cache instanceof TwoTierCache tiered) {
+            CaffeineCacheMetrics.monitor(registry, tiered.getLocalCache(), cache.getName(), Tags.of("tier", "local"));
+            if (tiered.getRemoteCache() instanceof RedisCache redis) {
+                new RedisCacheMetrics(redis, Tags.of("tier", "redis")).bindTo(registry);
+            }
+        } else if (cache instanceof RedisCache redis) {
+            new RedisCacheMetrics(redis, Tags.of("tier", "redis")).bindTo(registry);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split(" ", 4);
+        if (parts.length < 3 || publisher.getInstanceId().equals(parts[0])) return;
+        if (!(caches.get(parts[2]) instanceof TwoTierCache cache)) return;
+        switch (parts[1]) {
+            case "E" -> {
+                if (parts.length == 4) cache.evictLocal(parts[3]);
+            }
+            case "C" -> cache.clearLocal();
+            default -> log.debug("Ignoring unknown cache invalidation message: {}", body);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.hidoc.api.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Spring {@link Cache} with a bounded in-heap near-cache in front of a shared (Redis) cache.
+ *
+ * Reads are served from the near-cache when possible and fall back to the shared tier, populating the
+ * near-cache on the way back. Evictions hit both tiers and are broadcast so that other instances drop
+ * their near-cache copies. Loads (puts after a miss) are not broadcast since every instance would
+ * compute the same value from the database.
+ *
+ * The shared tier is optional: without it the cache is purely in-heap, but evictions are still broadcast.
+ */
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    private final Cache remote;
+    private final CacheInvalidationPublisher publisher;
+
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+                        Cache remote, CacheInvalidationPublisher publisher) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public Object getNativeCache() { return local; }
+
+    public com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> getLocalCache() { return local; }
+
+    public Cache getRemoteCache() { return remote; }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String k = localKey(key);
+        ValueWrapper hit = local.getIfPresent(k);
+        if (hit != null || remote == null) return hit;
+        ValueWrapper remoteHit = remote.get(key);
+        if (remoteHit != null) {
+            local.put(k, new SimpleValueWrapper(remoteHit.get()));
+        }
+        return remoteHit;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String k = localKey(key);
+        ValueWrapper hit = local.getIfPresent(k);
+        if (hit != null) return (T) hit.get();
+        if (remote == null) {
+            return (T) local.get(k, kk -> new SimpleValueWrapper(load(key, valueLoader))).get();
+        }
+        T value = remote.get(key, valueLoader);
+        local.put(k, new SimpleValueWrapper(value));
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (remote != null) remote.put(key, value);
+        local.put(localKey(key), new SimpleValueWrapper(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        if (remote == null) {
+            return local.asMap().putIfAbsent(localKey(key), new SimpleValueWrapper(value));
+        }
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        local.put(localKey(key), new SimpleValueWrapper(existing != null ? existing.get() : value));
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (remote != null) remote.evict(key);
+        evictLocal(localKey(key));
+        publisher.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = remote != null ? remote.evictIfPresent(key) : local.asMap().remove(localKey(key)) != null;
+        evictLocal(localKey(key));
+        publisher.publishEvict(name, localKey(key));
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        if (remote != null) remote.clear();
+        clearLocal();
+        publisher.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean hadEntries = remote != null ? remote.invalidate() : !local.asMap().isEmpty();
+        clearLocal();
+        publisher.publishClear(name);
+        return hadEntries;
+    }
+
+    private static <T> T load(Object key, Callable<T> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    void evictLocal(String key) {
+        local.invalidate(key);
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    // Redis keys are rendered as strings as well, so both tiers and the invalidation channel agree on identity
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
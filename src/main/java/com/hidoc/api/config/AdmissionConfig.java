@@ -0,0 +1,30 @@
+package com.hidoc.api.config;
+
+import com.hidoc.api.admission.AdmissionController;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Admission gates in front of MCP tool calls and AI provider calls. They are separate so that a tool call
+ * holding a slot never waits for a slot of its own gate: tool calls wait for providers, never the reverse.
+ */
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfig {
+
+    @Bean
+    public AdmissionController toolAdmission(AdmissionProperties props) {
+        return props.isEnabled() ? new AdmissionController("tools", props.getTools()) : AdmissionController.unlimited("tools");
+    }
+
+    @Bean
+    public AdmissionController providerAdmission(AdmissionProperties props) {
+        return props.isEnabled() ? new AdmissionController("providers", props.getProviders()) : AdmissionController.unlimited("providers");
+    }
+
+    @Bean
+    public AdmissionController analyticsAdmission(AdmissionProperties props) {
+        return props.isEnabled() ? new AdmissionController("analytics", props.getAnalytics()) : AdmissionController.unlimited("analytics");
+    }
+}
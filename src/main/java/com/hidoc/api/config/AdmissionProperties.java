@@ -0,0 +1,89 @@
+package com.hidoc.api.config;
+
+import com.hidoc.api.admission.RequestPriority;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Admission control settings bound from the {@code admission.*} namespace.
+ *
+ * {@code tools} gates top-level MCP tool calls, {@code providers} gates calls to the AI providers and
+ * {@code analytics} gates the analytics endpoints and rollup job, which run as the batch class. Each
+ * gate runs at most {@code max-concurrent} requests and queues the rest per priority class; queued requests
+ * are started in proportion to their class's {@code weight}, and are rejected with 429 when their queue is
+ * full or after {@code max-queue-wait-ms}.
+ */
+@ConfigurationProperties(prefix = "admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+    private Gate tools = new Gate(64);
+    private Gate providers = new Gate(16);
+    private Gate analytics = new Gate(4);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Gate getTools() { return tools; }
+    public void setTools(Gate tools) { this.tools = tools; }
+    public Gate getProviders() { return providers; }
+    public void setProviders(Gate providers) { this.providers = providers; }
+    public Gate getAnalytics() { return analytics; }
+    public void setAnalytics(Gate analytics) { this.analytics = analytics; }
+
+    public static class Gate {
+        private int maxConcurrent;
+        private long maxQueueWaitMs = 10_000;
+        /** Sent as Retry-After when a request is shed. */
+        private long retryAfterSeconds = 2;
+        private Queue interactive = new Queue(200, 8);
+        private Queue background = new Queue(100, 3);
+        private Queue batch = new Queue(50, 1);
+
+        public Gate() {
+            this(16);
+        }
+
+        public Gate(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+        public long getMaxQueueWaitMs() { return maxQueueWaitMs; }
+        public void setMaxQueueWaitMs(long maxQueueWaitMs) { this.maxQueueWaitMs = maxQueueWaitMs; }
+        public long getRetryAfterSeconds() { return retryAfterSeconds; }
+        public void setRetryAfterSeconds(long retryAfterSeconds) { this.retryAfterSeconds = retryAfterSeconds; }
+        public Queue getInteractive() { return interactive; }
+        public void setInteractive(Queue interactive) { this.interactive = interactive; }
+        public Queue getBackground() { return background; }
+        public void setBackground(Queue background) { this.background = background; }
+        public Queue getBatch() { return batch; }
+        public void setBatch(Queue batch) { this.batch = batch; }
+
+        public Queue queue(RequestPriority priority) {
+            return switch (priority) {
+                case INTERACTIVE -> interactive;
+                case BACKGROUND -> background;
+                case BATCH -> batch;
+            };
+        }
+    }
+
+    public static class Queue {
+        private int capacity;
+        private int weight;
+
+        public Queue() {
+            this(100, 1);
+        }
+
+        public Queue(int capacity, int weight) {
+            this.capacity = capacity;
+            this.weight = weight;
+        }
+
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+        public int getWeight() { return weight; }
+        public void setWeight(int weight) { this.weight = weight; }
+    }
+}
@@ -1,9 +1,19 @@
 package com.hidoc.api.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hidoc.api.cache.CacheInvalidationPublisher;
+import com.hidoc.api.cache.SmileRedisSerializer;
+import com.hidoc.api.cache.TieredCacheManager;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.CompositeCacheManager;
 import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,41 +21,102 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CachingProperties.class)
 public class CacheConfig {
 
     @Bean
     @ConditionalOnProperty(prefix = "cache", name = "enabled", havingValue = "false", matchIfMissing = true)
-    public CacheManager noOpCacheManager() {
-        return new NoOpCacheManager();
+    public CacheManager localCacheManager(CachingProperties props) {
+        // Without Redis only caches that can be per-instance stay on; every other cache is a no-op
+        CaffeineCacheManager local = new CaffeineCacheManager();
+        local.setCacheNames(List.of());
+        props.getSpecs().forEach((name, spec) -> {
+            if (!spec.isLocalWhenDisabled()) return;
+            long ttl = spec.getNearTtlSeconds() != null ? spec.getNearTtlSeconds() : props.getNear().getTtlSeconds();
+            long maxEntries = spec.getMaxEntries() != null ? spec.getMaxEntries() : props.getNear().getMaximumSize();
+            local.registerCustomCache(name, Caffeine.newBuilder()
+                    .maximumSize(maxEntries)
+                    .expireAfterWrite(Duration.ofSeconds(ttl))
+                    .recordStats()
+                    .build());
+        });
+        return new CompositeCacheManager(local, new NoOpCacheManager());
     }
 
     @Bean
     @ConditionalOnProperty(prefix = "cache", name = "enabled", havingValue = "true")
-    public RedisConnectionFactory redisConnectionFactory(
-            @Value("${cache.redis.host:localhost}") String host,
-            @Value("${cache.redis.port:6379}") int port) {
-        return new LettuceConnectionFactory(host, port);
+    public RedisConnectionFactory redisConnectionFactory(CachingProperties props) {
+        return new LettuceConnectionFactory(props.getRedis().getHost(), props.getRedis().getPort());
     }
 
     @Bean
     @ConditionalOnProperty(prefix = "cache", name = "enabled", havingValue = "true")
-    public CacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
-                                          @Value("${cache.redis.ttl-seconds:300}") long ttlSeconds) {
-        GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer();
-        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
+    public CacheInvalidationPublisher cacheInvalidationPublisher(RedisConnectionFactory connectionFactory) {
+        return new CacheInvalidationPublisher(new StringRedisTemplate(connectionFactory));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cache", name = "enabled", havingValue = "true")
+    public TieredCacheManager tieredCacheManager(RedisConnectionFactory connectionFactory,
+                                                 CacheInvalidationPublisher publisher,
+                                                 CachingProperties props) {
+        RedisCacheConfiguration defaults = redisCacheConfiguration(props.getRedis().getTtlSeconds(),
+                new GenericJackson2JsonRedisSerializer());
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory())
+                .registerModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        Map<String, RedisCacheConfiguration> perCache = new HashMap<>();
+        props.getSpecs().forEach((name, spec) -> {
+            if (spec.getTier() == CachingProperties.Tier.LOCAL) return;
+            long ttl = spec.getTtlSeconds() != null ? spec.getTtlSeconds() : props.getRedis().getTtlSeconds();
+            RedisSerializer<?> values;
+            if (spec.getCodec() == CachingProperties.Codec.BINARY) {
+                if (spec.getValueType() == null) {
+                    throw new IllegalStateException("cache.specs." + name + ".value-type is required for the BINARY codec");
+                }
+                values = new SmileRedisSerializer(smileMapper, spec.getValueType());
+            } else {
+                values = new GenericJackson2JsonRedisSerializer();
+            }
+            perCache.put(name, redisCacheConfiguration(ttl, values));
+        });
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withInitialCacheConfigurations(perCache)
+                .enableStatistics()
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        return new TieredCacheManager(redisCacheManager, publisher, props);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cache", name = "enabled", havingValue = "true")
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   TieredCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(CacheInvalidationPublisher.CHANNEL));
+        return container;
+    }
+
+    private static RedisCacheConfiguration redisCacheConfiguration(long ttlSeconds, RedisSerializer<?> valueSerializer) {
+        return RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofSeconds(ttlSeconds))
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(RedisSerializer.string()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer));
-        return RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(config)
-                .build();
     }
 }
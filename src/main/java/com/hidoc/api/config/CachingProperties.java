@@ -0,0 +1,104 @@
+package com.hidoc.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache settings bound from the {@code cache.*} namespace.
+ *
+ * {@code cache.redis.ttl-seconds} and {@code cache.near.*} are the defaults for any cache that has no entry
+ * under {@code cache.specs}. Each spec may override tier, TTLs, the size bound of the in-heap tier and the
+ * Redis value codec.
+ *
+ * With {@code cache.enabled} false every cache is a no-op, except those whose spec sets
+ * {@code local-when-disabled}: they keep an in-heap cache with the near-cache TTL and size bound.
+ */
+@ConfigurationProperties(prefix = "cache")
+public class CachingProperties {
+
+    private boolean enabled = false;
+    private Redis redis = new Redis();
+    private Near near = new Near();
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Redis getRedis() { return redis; }
+    public void setRedis(Redis redis) { this.redis = redis; }
+    public Near getNear() { return near; }
+    public void setNear(Near near) { this.near = near; }
+    public Map<String, Spec> getSpecs() { return specs; }
+    public void setSpecs(Map<String, Spec> specs) { this.specs = specs; }
+
+    /** Where a cache keeps its entries. */
+    public enum Tier {
+        /** In-heap only; evictions are still broadcast to other instances. */
+        LOCAL,
+        /** Redis only. */
+        REDIS,
+        /** In-heap near-cache in front of Redis. */
+        TWO_TIER
+    }
+
+    /** Value codec used for the Redis tier. */
+    public enum Codec {
+        /** Jackson JSON with embedded type information; works for any value. */
+        JSON,
+        /** Jackson Smile bound to the declared value type; compact, requires {@code value-type}. */
+        BINARY
+    }
+
+    public static class Redis {
+        private String host = "localhost";
+        private int port = 6379;
+        private long ttlSeconds = 300;
+
+        public String getHost() { return host; }
+        public void setHost(String host) { this.host = host; }
+        public int getPort() { return port; }
+        public void setPort(int port) { this.port = port; }
+        public long getTtlSeconds() { return ttlSeconds; }
+        public void setTtlSeconds(long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+    }
+
+    public static class Near {
+        private long ttlSeconds = 30;
+        private long maximumSize = 10_000;
+
+        public long getTtlSeconds() { return ttlSeconds; }
+        public void setTtlSeconds(long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+        public long getMaximumSize() { return maximumSize; }
+        public void setMaximumSize(long maximumSize) { this.maximumSize = maximumSize; }
+    }
+
+    public static class Spec {
+        private Tier tier = Tier.TWO_TIER;
+        // Redis entry TTL; falls back to cache.redis.ttl-seconds
+        private Long ttlSeconds;
+        // In-heap entry TTL; falls back to cache.near.ttl-seconds (LOCAL caches use ttl-seconds when this is unset)
+        private Long nearTtlSeconds;
+        // Size bound of the in-heap tier; falls back to cache.near.maximum-size
+        private Long maxEntries;
+        private Codec codec = Codec.JSON;
+        private Class<?> valueType;
+        // Keep the in-heap tier when cache.enabled is false; entries are then per instance only
+        private boolean localWhenDisabled;
+
+        public Tier getTier() { return tier; }
+        public void setTier(Tier tier) { this.tier = tier; }
+        public Long getTtlSeconds() { return ttlSeconds; }
+        public void setTtlSeconds(Long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+        public Long getNearTtlSeconds() { return nearTtlSeconds; }
+        public void setNearTtlSeconds(Long nearTtlSeconds) { this.nearTtlSeconds = nearTtlSeconds; }
+        public Long getMaxEntries() { return maxEntries; }
+        public void setMaxEntries(Long maxEntries) { this.maxEntries = maxEntries; }
+        public Codec getCodec() { return codec; }
+        public void setCodec(Codec codec) { this.codec = codec; }
+        public Class<?> getValueType() { return valueType; }
+        public void setValueType(Class<?> valueType) { this.valueType = valueType; }
+        public boolean isLocalWhenDisabled() { return localWhenDisabled; }
+        public void setLocalWhenDisabled(boolean localWhenDisabled) { this.localWhenDisabled = localWhenDisabled; }
+    }
+}
@@ -1,5 +1,6 @@
 package com.hidoc.api.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
@@ -10,5 +11,6 @@ import org.springframework.context.annotation.Configuration;
  */
 @Configuration
 @ComponentScan(basePackages = {"com.hidoc.mcp"})
+@EnableConfigurationProperties(McpFlowProperties.class)
 public class McpConfig {
 }
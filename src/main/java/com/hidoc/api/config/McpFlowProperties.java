@@ -0,0 +1,62 @@
+package com.hidoc.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tool flows declared under {@code mcp.flows.<name>}.
+ *
+ * String values in {@code params} and {@code fallback} may reference the flow input or earlier results as
+ * {@code {{input.field}}} or {@code {{node.field}}} (dotted paths); a value that is exactly one reference keeps
+ * the referenced JSON type. A flow named {@code route-<message_type>} handles that message type in
+ * ai.route_with_master_prompt, receiving user_id, message and context as input.
+ */
+@ConfigurationProperties(prefix = "mcp")
+public class McpFlowProperties {
+
+    private Map<String, FlowDefinition> flows = new LinkedHashMap<>();
+
+    public Map<String, FlowDefinition> getFlows() { return flows; }
+    public void setFlows(Map<String, FlowDefinition> flows) { this.flows = flows; }
+
+    public static class FlowDefinition {
+        private List<NodeDefinition> nodes = new ArrayList<>();
+        /** Id of the node whose result is the flow's result. */
+        private String output;
+        private Long timeoutMs;
+
+        public List<NodeDefinition> getNodes() { return nodes; }
+        public void setNodes(List<NodeDefinition> nodes) { this.nodes = nodes; }
+        public String getOutput() { return output; }
+        public void setOutput(String output) { this.output = output; }
+        public Long getTimeoutMs() { return timeoutMs; }
+        public void setTimeoutMs(Long timeoutMs) { this.timeoutMs = timeoutMs; }
+    }
+
+    public static class NodeDefinition {
+        private String id;
+        private String tool;
+        private List<String> dependsOn = new ArrayList<>();
+        private Map<String, Object> params = new LinkedHashMap<>();
+        private Long timeoutMs;
+        /** Result used when the call fails; without one a failure fails the flow. */
+        private Map<String, Object> fallback;
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+        public String getTool() { return tool; }
+        public void setTool(String tool) { this.tool = tool; }
+        public List<String> getDependsOn() { return dependsOn; }
+        public void setDependsOn(List<String> dependsOn) { this.dependsOn = dependsOn; }
+        public Map<String, Object> getParams() { return params; }
+        public void setParams(Map<String, Object> params) { this.params = params; }
+        public Long getTimeoutMs() { return timeoutMs; }
+        public void setTimeoutMs(Long timeoutMs) { this.timeoutMs = timeoutMs; }
+        public Map<String, Object> getFallback() { return fallback; }
+        public void setFallback(Map<String, Object> fallback) { this.fallback = fallback; }
+    }
+}
@@ -0,0 +1,31 @@
+package com.hidoc.api.config;
+
+import com.hidoc.mcp.web.McpWebSocketHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Exposes the MCP WebSocket transport at /mcp/ws. The handshake is an ordinary HTTP request, so it goes
+ * through the same JWT filter chain as the other MCP endpoints.
+ */
+@Configuration
+@EnableWebSocket
+public class McpWebSocketConfig implements WebSocketConfigurer {
+
+    private final McpWebSocketHandler handler;
+
+    @Value("${mcp.websocket.allowed-origin-patterns:*}")
+    private String[] allowedOriginPatterns = {"*"};
+
+    public McpWebSocketConfig(McpWebSocketHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(handler, "/mcp/ws").setAllowedOriginPatterns(allowedOriginPatterns);
+    }
+}
@@ -28,6 +28,12 @@ public class AnalyticsSummary {
     @Column(name = "period_end", nullable = false)
     private LocalDateTime periodEnd;
 
+    @Column(name = "granularity", nullable = false, length = 10)
+    private String granularity = "HOUR";
+
+    @Column(name = "sketch")
+    private byte[] sketch;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -46,6 +52,10 @@ public class AnalyticsSummary {
     public void setPeriodStart(LocalDateTime periodStart) { this.periodStart = periodStart; }
     public LocalDateTime getPeriodEnd() { return periodEnd; }
     public void setPeriodEnd(LocalDateTime periodEnd) { this.periodEnd = periodEnd; }
+    public String getGranularity() { return granularity; }
+    public void setGranularity(String granularity) { this.granularity = granularity; }
+    public byte[] getSketch() { return sketch; }
+    public void setSketch(byte[] sketch) { this.sketch = sketch; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 }
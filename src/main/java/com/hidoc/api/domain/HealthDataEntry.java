@@ -1,18 +1,29 @@
 package com.hidoc.api.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.regex.Pattern;
 
 @Entity
 @Table(name = "health_data_entries")
 public class HealthDataEntry {
 
+    // The test V8 used to tell UUIDs from legacy ids
+    private static final Pattern UUID_TEXT =
+            Pattern.compile("(?i)[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
     @Id
-    @Column(length = 255)
-    private String id;
+    @Column(nullable = false)
+    private UUID id;
 
     @Column(name = "user_id", nullable = false, length = 255)
     private String userId;
@@ -39,8 +50,13 @@ public class HealthDataEntry {
     private LocalDateTime createdAt = LocalDateTime.now();
 
     // Getters and setters
-    public String getId() { return id; }
-    public void setId(String id) { this.id = id; }
+    // Stored as a native uuid; the API keeps exposing ids as strings
+    public String getId() { return id == null ? null : id.toString(); }
+    public void setId(String id) { this.id = id == null || id.isBlank() ? null : toUuid(id); }
+    @JsonIgnore
+    public UUID getUuid() { return id; }
+    @JsonIgnore
+    public void setUuid(UUID id) { this.id = id; }
     public String getUserId() { return userId; }
     public void setUserId(String userId) { this.userId = userId; }
     public String getType() { return type; }
@@ -57,4 +73,20 @@ public class HealthDataEntry {
     public void setNotes(String notes) { this.notes = notes; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    /**
+     * Parses an entry id. Ids that are not UUIDs were client-supplied before keys became native uuids; V8
+     * rewrote them to {@code CAST(md5(id) AS uuid)}, and the same mapping here keeps them resolving.
+     */
+    public static UUID toUuid(String id) {
+        if (UUID_TEXT.matcher(id).matches()) {
+            return UUID.fromString(id);
+        }
+        try {
+            ByteBuffer md5 = ByteBuffer.wrap(MessageDigest.getInstance("MD5").digest(id.getBytes(StandardCharsets.UTF_8)));
+            return new UUID(md5.getLong(), md5.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
 }
@@ -0,0 +1,54 @@
+package com.hidoc.api.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "health_measurements")
+public class HealthMeasurement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entry_id", nullable = false)
+    private UUID entryId;
+
+    @Column(name = "user_id", nullable = false, length = 255)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private HealthMetric metric;
+
+    @Column(nullable = false)
+    private double value;
+
+    // Second component where a reading has one (diastolic blood pressure)
+    @Column
+    private Double value2;
+
+    @Column(nullable = false, length = 16)
+    private String unit;
+
+    @Column(name = "measured_at", nullable = false)
+    private LocalDateTime measuredAt;
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public UUID getEntryId() { return entryId; }
+    public void setEntryId(UUID entryId) { this.entryId = entryId; }
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    public HealthMetric getMetric() { return metric; }
+    public void setMetric(HealthMetric metric) { this.metric = metric; }
+    public double getValue() { return value; }
+    public void setValue(double value) { this.value = value; }
+    public Double getValue2() { return value2; }
+    public void setValue2(Double value2) { this.value2 = value2; }
+    public String getUnit() { return unit; }
+    public void setUnit(String unit) { this.unit = unit; }
+    public LocalDateTime getMeasuredAt() { return measuredAt; }
+    public void setMeasuredAt(LocalDateTime measuredAt) { this.measuredAt = measuredAt; }
+}
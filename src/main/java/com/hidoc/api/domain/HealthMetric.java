@@ -0,0 +1,40 @@
+package com.hidoc.api.domain;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Measurement types with a numeric representation. Each metric is stored in its canonical unit;
+ * entry types are matched case-insensitively against the aliases.
+ */
+public enum HealthMetric {
+    HEART_RATE("bpm", "heart_rate", "heartrate", "pulse", "hr"),
+    BLOOD_PRESSURE("mmHg", "blood_pressure", "bloodpressure", "bp"),
+    BLOOD_GLUCOSE("mg/dL", "blood_glucose", "glucose", "blood_sugar"),
+    WEIGHT("kg", "weight", "body_weight"),
+    HEIGHT("cm", "height"),
+    BODY_TEMPERATURE("C", "body_temperature", "temperature", "temp"),
+    STEPS("steps", "steps", "step_count"),
+    SLEEP_DURATION("h", "sleep_duration", "sleep"),
+    OXYGEN_SATURATION("%", "oxygen_saturation", "spo2", "oxygen");
+
+    private final String unit;
+    private final Set<String> aliases;
+
+    HealthMetric(String unit, String... aliases) {
+        this.unit = unit;
+        this.aliases = Set.of(aliases);
+    }
+
+    public String unit() { return unit; }
+
+    public static Optional<HealthMetric> fromType(String type) {
+        if (type == null || type.isBlank()) return Optional.empty();
+        String key = type.trim().toLowerCase(Locale.ROOT).replace(' ', '_').replace('-', '_');
+        for (HealthMetric m : values()) {
+            if (m.aliases.contains(key)) return Optional.of(m);
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,41 @@
+package com.hidoc.api.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One recorded AI request; never updated, unlike the monthly usage_tracking counter
+@Entity
+@Table(name = "usage_events")
+public class UsageEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_key", nullable = false, length = 255)
+    private String userKey;
+
+    @Column(name = "ai_provider", nullable = false, length = 50)
+    private String aiProvider;
+
+    @Column(nullable = false)
+    private boolean success;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    protected UsageEvent() {}
+
+    public UsageEvent(String userKey, String aiProvider, boolean success, LocalDateTime occurredAt) {
+        this.userKey = userKey;
+        this.aiProvider = aiProvider;
+        this.success = success;
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getId() { return id; }
+    public String getUserKey() { return userKey; }
+    public String getAiProvider() { return aiProvider; }
+    public boolean isSuccess() { return success; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+}
@@ -0,0 +1,17 @@
+package com.hidoc.api.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** Work shed by admission control because its queue was full or it waited too long; answered with 429. */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class OverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public OverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
@@ -0,0 +1,34 @@
+package com.hidoc.api.repository;
+
+import com.hidoc.api.domain.AnalyticsHistogram;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AnalyticsHistogramRepository extends JpaRepository<AnalyticsHistogram, Long> {
+
+    // Rows for hour buckets starting in [from, to), optionally narrowed to one provider/model/tool
+    @Query("SELECT h FROM AnalyticsHistogram h WHERE h.metricType = :metricType AND h.bucketStart >= :from AND h.bucketStart < :to " +
+            "AND (:provider IS NULL OR h.provider = :provider) AND (:model IS NULL OR h.model = :model) AND (:tool IS NULL OR h.tool = :tool)")
+    List<AnalyticsHistogram> findInRange(@Param("metricType") String metricType,
+                                         @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                         @Param("provider") String provider, @Param("model") String model,
+                                         @Param("tool") String tool);
+
+    // The in-memory histogram of the current hour is cumulative, so each flush replaces the previous one
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO analytics_histograms (metric_type, provider, model, tool, instance_id, bucket_start, sample_count, histogram, updated_at) " +
+            "VALUES (:metricType, :provider, :model, :tool, :instanceId, :bucketStart, :sampleCount, :histogram, now()) " +
+            "ON CONFLICT (metric_type, provider, model, tool, instance_id, bucket_start) " +
+            "DO UPDATE SET sample_count = EXCLUDED.sample_count, histogram = EXCLUDED.histogram, updated_at = now()", nativeQuery = true)
+    int upsert(@Param("metricType") String metricType, @Param("provider") String provider, @Param("model") String model,
+               @Param("tool") String tool, @Param("instanceId") String instanceId,
+               @Param("bucketStart") LocalDateTime bucketStart, @Param("sampleCount") long sampleCount,
+               @Param("histogram") byte[] histogram);
+}
@@ -2,6 +2,7 @@ package com.hidoc.api.repository;
 
 import com.hidoc.api.domain.AnalyticsSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -10,18 +11,94 @@ import java.util.List;
 
 public interface AnalyticsRepository extends JpaRepository<AnalyticsSummary, Long> {
 
-    @Query(value = "SELECT COUNT(*) FROM usage_tracking WHERE request_timestamp BETWEEN :from AND :to", nativeQuery = true)
-    long countTotalBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    // Full days in [dayFrom, dayTo) are read from DAY rollups, the remaining hours of [from, to) from HOUR rollups
+    String ROLLUP_PERIODS = "((granularity = 'DAY' AND period_start >= :dayFrom AND period_end <= :dayTo) " +
+            "OR (granularity = 'HOUR' AND period_start >= :from AND period_end <= :to " +
+            "AND NOT (period_start >= :dayFrom AND period_end <= :dayTo)))";
 
-    @Query(value = "SELECT COUNT(DISTINCT user_id) FROM usage_tracking WHERE request_timestamp BETWEEN :from AND :to", nativeQuery = true)
-    long countDistinctUsersBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    // Request counts come from the append-only usage_events log: usage_tracking keeps one row per user and
+    // month that is overwritten on every request, so it cannot be bucketed by time
+    String SUCCESSFUL_EVENTS = "FROM usage_events WHERE success AND occurred_at >= :from AND occurred_at < :to";
 
-    @Query(value = "SELECT ai_provider, COUNT(*) FROM usage_tracking WHERE request_timestamp BETWEEN :from AND :to GROUP BY ai_provider", nativeQuery = true)
-    List<Object[]> countByProviderBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    // Live queries over a half-open range [from, to), for the edges of a range not covered by rollups
 
-    @Query(value = "SELECT DATE(request_timestamp) as day, COUNT(*) FROM usage_tracking WHERE request_timestamp BETWEEN :from AND :to GROUP BY day ORDER BY day", nativeQuery = true)
-    List<Object[]> dailyUsageCountsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    @Query(value = "SELECT COUNT(*) " + SUCCESSFUL_EVENTS, nativeQuery = true)
+    long countTotalInRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
-    @Query(value = "SELECT DATE(request_timestamp) as day, COUNT(*) FROM usage_tracking WHERE ai_provider = :provider AND request_timestamp BETWEEN :from AND :to GROUP BY day ORDER BY day", nativeQuery = true)
-    List<Object[]> dailyUsageCountsByProviderBetween(@Param("provider") String provider, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    @Query(value = "SELECT ai_provider, COUNT(*) " + SUCCESSFUL_EVENTS + " GROUP BY ai_provider", nativeQuery = true)
+    List<Object[]> countByProviderInRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(value = "SELECT DATE(occurred_at) as day, COUNT(*) " + SUCCESSFUL_EVENTS + " GROUP BY day ORDER BY day", nativeQuery = true)
+    List<Object[]> dailyUsageCountsInRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(value = "SELECT DATE(occurred_at) as day, COUNT(*) " + SUCCESSFUL_EVENTS + " AND ai_provider = :provider GROUP BY day ORDER BY day", nativeQuery = true)
+    List<Object[]> dailyUsageCountsByProviderInRange(@Param("provider") String provider, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // user_key is the email, falling back to the legacy user_id
+    @Query(value = "SELECT COUNT(DISTINCT user_key) " + SUCCESSFUL_EVENTS, nativeQuery = true)
+    long countDistinctUsersInRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(value = "SELECT DISTINCT user_key " + SUCCESSFUL_EVENTS, nativeQuery = true)
+    List<String> findDistinctUsersInRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Rollups
+
+    @Query("SELECT MAX(a.periodEnd) FROM AnalyticsSummary a WHERE a.metricType = 'requests' AND a.granularity = 'HOUR'")
+    LocalDateTime findRollupWatermark();
+
+    @Query("SELECT MIN(e.occurredAt) FROM UsageEvent e")
+    LocalDateTime findEarliestUsageTimestamp();
+
+    @Query(value = "SELECT COALESCE(SUM(metric_value), 0) FROM analytics_summary WHERE metric_type = 'requests' AND " + ROLLUP_PERIODS, nativeQuery = true)
+    long sumRolledUpRequests(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                             @Param("dayFrom") LocalDateTime dayFrom, @Param("dayTo") LocalDateTime dayTo);
+
+    @Query(value = "SELECT dimension_1, SUM(metric_value) FROM analytics_summary WHERE metric_type = 'requests_by_provider' AND " + ROLLUP_PERIODS + " GROUP BY dimension_1", nativeQuery = true)
+    List<Object[]> sumRolledUpRequestsByProvider(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                 @Param("dayFrom") LocalDateTime dayFrom, @Param("dayTo") LocalDateTime dayTo);
+
+    @Query(value = "SELECT CAST(period_start AS DATE) as day, SUM(metric_value) FROM analytics_summary WHERE metric_type = 'requests' AND " + ROLLUP_PERIODS + " GROUP BY day ORDER BY day", nativeQuery = true)
+    List<Object[]> dailyRolledUpRequests(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                         @Param("dayFrom") LocalDateTime dayFrom, @Param("dayTo") LocalDateTime dayTo);
+
+    @Query(value = "SELECT CAST(period_start AS DATE) as day, SUM(metric_value) FROM analytics_summary WHERE metric_type = 'requests_by_provider' AND dimension_1 = :provider AND " + ROLLUP_PERIODS + " GROUP BY day ORDER BY day", nativeQuery = true)
+    List<Object[]> dailyRolledUpRequestsByProvider(@Param("provider") String provider,
+                                                   @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                   @Param("dayFrom") LocalDateTime dayFrom, @Param("dayTo") LocalDateTime dayTo);
+
+    @Query(value = "SELECT sketch FROM analytics_summary WHERE metric_type = 'unique_users' AND sketch IS NOT NULL AND " + ROLLUP_PERIODS, nativeQuery = true)
+    List<byte[]> findUniqueUserSketches(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                        @Param("dayFrom") LocalDateTime dayFrom, @Param("dayTo") LocalDateTime dayTo);
+
+    @Query(value = "SELECT sketch FROM analytics_summary WHERE metric_type = 'unique_users' AND granularity = 'HOUR' AND sketch IS NOT NULL " +
+            "AND period_start >= :start AND period_start < :end", nativeQuery = true)
+    List<byte[]> findHourlyUniqueUserSketches(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Rollup writers; ON CONFLICT keeps concurrent runs on several instances idempotent
+
+    @Modifying
+    @Query(value = "INSERT INTO analytics_summary (metric_type, metric_value, dimension_1, dimension_2, period_start, period_end, granularity, created_at) " +
+            "SELECT 'requests', COUNT(*), NULL, NULL, :start, :end, 'HOUR', now() FROM usage_events " +
+            "WHERE success AND occurred_at >= :start AND occurred_at < :end ON CONFLICT DO NOTHING", nativeQuery = true)
+    int rollupRequestsForHour(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query(value = "INSERT INTO analytics_summary (metric_type, metric_value, dimension_1, dimension_2, period_start, period_end, granularity, created_at) " +
+            "SELECT 'requests_by_provider', COUNT(*), ai_provider, NULL, :start, :end, 'HOUR', now() FROM usage_events " +
+            "WHERE success AND occurred_at >= :start AND occurred_at < :end GROUP BY ai_provider ON CONFLICT DO NOTHING", nativeQuery = true)
+    int rollupRequestsByProviderForHour(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query(value = "INSERT INTO analytics_summary (metric_type, metric_value, dimension_1, dimension_2, period_start, period_end, granularity, created_at) " +
+            "SELECT metric_type, SUM(metric_value), dimension_1, dimension_2, :start, :end, 'DAY', now() FROM analytics_summary " +
+            "WHERE granularity = 'HOUR' AND metric_type IN ('requests', 'requests_by_provider') AND period_start >= :start AND period_start < :end " +
+            "GROUP BY metric_type, dimension_1, dimension_2 ON CONFLICT DO NOTHING", nativeQuery = true)
+    int rollupDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query(value = "INSERT INTO analytics_summary (metric_type, metric_value, dimension_1, dimension_2, period_start, period_end, granularity, sketch, created_at) " +
+            "VALUES ('unique_users', :estimate, NULL, NULL, :start, :end, :granularity, :sketch, now()) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertUniqueUsers(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                          @Param("granularity") String granularity, @Param("estimate") long estimate,
+                          @Param("sketch") byte[] sketch);
 }
@@ -1,12 +1,53 @@
 package com.hidoc.api.repository;
 
 import com.hidoc.api.domain.HealthDataEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface HealthDataRepository extends JpaRepository<HealthDataEntry, String> {
-    List<HealthDataEntry> findByUserIdAndTimestampBetweenOrderByTimestampAsc(String userId, LocalDateTime from, LocalDateTime to);
-    List<HealthDataEntry> findByUserIdAndTypeAndTimestampBetweenOrderByTimestampAsc(String userId, String type, LocalDateTime from, LocalDateTime to);
+public interface HealthDataRepository extends JpaRepository<HealthDataEntry, UUID> {
+
+    // value is free text; only plain decimal numbers take part in numeric aggregates
+    // (empty alternatives instead of ? and {m,n}, which Hibernate would parse in a native query)
+    String NUMERIC_VALUE = "CASE WHEN value ~ '^(-|)[0-9]+([.][0-9]+|)$' THEN CAST(value AS DOUBLE PRECISION) END";
+    // Walks all entries in id order, for backfills
+    List<HealthDataEntry> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    // Keyset page: entries strictly after (afterTs, afterId) in (timestamp, id) order
+    @Query("SELECT h FROM HealthDataEntry h WHERE h.userId = :userId AND h.timestamp <= :to " +
+            "AND (h.timestamp > :afterTs OR (h.timestamp = :afterTs AND h.id > :afterId)) " +
+            "AND (:type IS NULL OR h.type = :type) ORDER BY h.timestamp ASC, h.id ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<HealthDataEntry> findPageAfter(@Param("userId") String userId, @Param("type") String type,
+                                        @Param("afterTs") LocalDateTime afterTs, @Param("afterId") UUID afterId,
+                                        @Param("to") LocalDateTime to, Limit limit);
+
+    // Cursor-backed stream; must be consumed inside a transaction and closed
+    @Query("SELECT h FROM HealthDataEntry h WHERE h.userId = :userId AND h.timestamp >= :from AND h.timestamp <= :to " +
+            "AND (:type IS NULL OR h.type = :type) ORDER BY h.timestamp ASC, h.id ASC")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    Stream<HealthDataEntry> streamByUser(@Param("userId") String userId, @Param("type") String type,
+                                         @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Per-bucket count plus aggregates over values that parse as numbers; bucket is a date_trunc field
+    @Query(value = "SELECT date_trunc(:bucket, timestamp) AS bucket, COUNT(*) AS count, " +
+            "AVG(" + NUMERIC_VALUE + ") AS avg, MIN(" + NUMERIC_VALUE + ") AS min, MAX(" + NUMERIC_VALUE + ") AS max " +
+            "FROM health_data_entries WHERE user_id = :userId AND timestamp >= :from AND timestamp <= :to " +
+            "AND (CAST(:type AS VARCHAR) IS NULL OR type = :type) GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<Object[]> aggregateTrends(@Param("userId") String userId, @Param("type") String type,
+                                   @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                   @Param("bucket") String bucket);
 }
@@ -0,0 +1,53 @@
+package com.hidoc.api.repository;
+
+import com.hidoc.api.domain.HealthMeasurement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface HealthMeasurementRepository extends JpaRepository<HealthMeasurement, Long> {
+
+    // One measurement per entry; re-saving an entry replaces its measurement
+    @Modifying
+    @Query(value = "INSERT INTO health_measurements (entry_id, user_id, metric, value, value2, unit, measured_at) " +
+            "VALUES (:entryId, :userId, :metric, :value, :value2, :unit, :measuredAt) " +
+            "ON CONFLICT (entry_id) DO UPDATE SET metric = EXCLUDED.metric, value = EXCLUDED.value, value2 = EXCLUDED.value2, " +
+            "unit = EXCLUDED.unit, measured_at = EXCLUDED.measured_at", nativeQuery = true)
+    int upsert(@Param("entryId") UUID entryId, @Param("userId") String userId, @Param("metric") String metric,
+               @Param("value") double value, @Param("value2") Double value2, @Param("unit") String unit,
+               @Param("measuredAt") LocalDateTime measuredAt);
+
+    default int upsert(HealthMeasurement m) {
+        return upsert(m.getEntryId(), m.getUserId(), m.getMetric().name(), m.getValue(), m.getValue2(), m.getUnit(),
+                m.getMeasuredAt());
+    }
+
+    @Modifying
+    @Query("DELETE FROM HealthMeasurement m WHERE m.entryId = :entryId")
+    int deleteByEntryId(@Param("entryId") UUID entryId);
+
+    @Query(value = "SELECT date_trunc(:bucket, measured_at) AS bucket, COUNT(*) AS count, AVG(value) AS avg, MIN(value) AS min, MAX(value) AS max " +
+            "FROM health_measurements WHERE user_id = :userId AND metric = :metric AND measured_at >= :from AND measured_at <= :to " +
+            "GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<Object[]> aggregate(@Param("userId") String userId, @Param("metric") String metric,
+                             @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                             @Param("bucket") String bucket);
+
+    // Served by the (user_id, metric, measured_at) INCLUDE (value, value2) index without touching the heap
+    @Query(value = "SELECT DISTINCT ON (metric) metric, value, value2, measured_at FROM health_measurements " +
+            "WHERE user_id = :userId ORDER BY metric, measured_at DESC, id DESC", nativeQuery = true)
+    List<Object[]> findLatestPerMetric(@Param("userId") String userId);
+
+    @Query(value = "SELECT metric, " +
+            "COUNT(*) FILTER (WHERE measured_at >= :since7) AS count7, SUM(value) FILTER (WHERE measured_at >= :since7) AS sum7, " +
+            "MIN(value) FILTER (WHERE measured_at >= :since7) AS min7, MAX(value) FILTER (WHERE measured_at >= :since7) AS max7, " +
+            "COUNT(*) AS count30, SUM(value) AS sum30, MIN(value) AS min30, MAX(value) AS max30 " +
+            "FROM health_measurements WHERE user_id = :userId AND measured_at >= :since30 GROUP BY metric", nativeQuery = true)
+    List<Object[]> summarizeWindows(@Param("userId") String userId, @Param("since7") LocalDateTime since7,
+                                    @Param("since30") LocalDateTime since30);
+}
@@ -0,0 +1,7 @@
+package com.hidoc.api.repository;
+
+import com.hidoc.api.domain.UsageEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UsageEventRepository extends JpaRepository<UsageEvent, Long> {
+}
@@ -0,0 +1,131 @@
+package com.hidoc.api.security;
+
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URL;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the signing keys of the supported identity providers as ready-to-use verifiers indexed by kid.
+ *
+ * Key sets are fetched on a background scheduler ahead of expiry; lookups only read the current snapshot
+ * and never perform network I/O. An unknown kid schedules an early, rate-limited refresh (key rotation),
+ * while the previous keys keep being served until the new set has been loaded.
+ */
+@Component
+public class JwksKeyStore {
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyStore.class);
+
+    private static final String GOOGLE_JWKS = "https://www.googleapis.com/oauth2/v3/certs";
+    private static final String MSFT_JWKS = "https://login.microsoftonline.com/common/discovery/v2.0/keys";
+    private static final int JWKS_SIZE_LIMIT = 512 * 1024;
+
+    private final Map<OAuthProvider, ProviderKeys> providers = new EnumMap<>(OAuthProvider.class);
+    private final ScheduledExecutorService scheduler;
+    private final long refreshIntervalMs;
+    private final long minRefreshIntervalMs;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    public JwksKeyStore(@Value("${security.jwt.jwks.refresh-interval-seconds:600}") long refreshIntervalSeconds,
+                        @Value("${security.jwt.jwks.min-refresh-interval-seconds:30}") long minRefreshIntervalSeconds,
+                        @Value("${security.jwt.jwks.connect-timeout-ms:2000}") int connectTimeoutMs,
+                        @Value("${security.jwt.jwks.read-timeout-ms:3000}") int readTimeoutMs) {
+        this.refreshIntervalMs = TimeUnit.SECONDS.toMillis(Math.max(1, refreshIntervalSeconds));
+        this.minRefreshIntervalMs = TimeUnit.SECONDS.toMillis(Math.max(0, minRefreshIntervalSeconds));
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        providers.put(OAuthProvider.GOOGLE, new ProviderKeys(GOOGLE_JWKS));
+        providers.put(OAuthProvider.MICROSOFT, new ProviderKeys(MSFT_JWKS));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "jwks-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        for (OAuthProvider provider : providers.keySet()) {
+            scheduler.scheduleWithFixedDelay(() -> refresh(provider), 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns the verifiers matching the given kid from the current snapshot. A null kid yields every
+     * signing key of the provider. An unknown kid returns an empty list and schedules a refresh.
+     */
+    public Collection<RSASSAVerifier> verifiers(OAuthProvider provider, String kid) {
+        ProviderKeys keys = providers.get(provider);
+        if (keys == null) return List.of();
+        Map<String, RSASSAVerifier> byKid = keys.verifiersByKid;
+        if (kid == null) return byKid.values();
+        RSASSAVerifier verifier = byKid.get(kid);
+        if (verifier != null) return List.of(verifier);
+        log.debug("Unknown kid {} for {}; requesting JWKS refresh", kid, provider);
+        requestRefresh(provider);
+        return List.of();
+    }
+
+    private void requestRefresh(OAuthProvider provider) {
+        ProviderKeys keys = providers.get(provider);
+        long now = System.currentTimeMillis();
+        if (now - keys.lastAttempt.get() < minRefreshIntervalMs) return;
+        if (keys.refreshing.get()) return;
+        scheduler.execute(() -> refresh(provider));
+    }
+
+    private void refresh(OAuthProvider provider) {
+        ProviderKeys keys = providers.get(provider);
+        if (!keys.refreshing.compareAndSet(false, true)) return;
+        keys.lastAttempt.set(System.currentTimeMillis());
+        try {
+            log.debug("Refreshing JWKs from {}", keys.url);
+            JWKSet fresh = JWKSet.load(new URL(keys.url), connectTimeoutMs, readTimeoutMs, JWKS_SIZE_LIMIT);
+            Map<String, RSASSAVerifier> verifiers = new ConcurrentHashMap<>();
+            for (JWK jwk : fresh.getKeys()) {
+                // Azure AD and some IdPs omit 'alg' in their JWKS, so select on use and key type only.
+                if (!KeyUse.SIGNATURE.equals(jwk.getKeyUse()) || !(jwk instanceof RSAKey rsaKey)) continue;
+                if (jwk.getKeyID() == null) continue;
+                verifiers.put(jwk.getKeyID(), new RSASSAVerifier(rsaKey));
+            }
+            keys.verifiersByKid = Map.copyOf(verifiers);
+            log.debug("Loaded {} signing keys for {}", verifiers.size(), provider);
+        } catch (Exception e) {
+            // keep serving the previous keys; the next scheduled or kid-triggered refresh retries
+            log.warn("Failed to load JWK set from {}: {}", keys.url, e.getMessage());
+        } finally {
+            keys.refreshing.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static final class ProviderKeys {
+        private final String url;
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+        private final AtomicLong lastAttempt = new AtomicLong(0);
+        private volatile Map<String, RSASSAVerifier> verifiersByKid = Map.of();
+
+        ProviderKeys(String url) {
+            this.url = url;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -14,8 +16,12 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -25,9 +31,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final OAuthValidationService oAuthValidationService;
+    // Public paths that never need a principal; only endpoints that do not look at the caller belong here
+    private final List<PathPattern> skipPatterns;
 
-    public JwtAuthenticationFilter(OAuthValidationService oAuthValidationService) {
+    public JwtAuthenticationFilter(OAuthValidationService oAuthValidationService,
+                                   @Value("${security.jwt.skip-paths:}") String[] skipPaths) {
         this.oAuthValidationService = oAuthValidationService;
+        this.skipPatterns = Arrays.stream(skipPaths)
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (skipPatterns.isEmpty()) return false;
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        PathContainer container = PathContainer.parsePath(path);
+        for (PathPattern pattern : skipPatterns) {
+            if (pattern.matches(container)) return true;
+        }
+        return false;
     }
 
     @Override
@@ -1,36 +1,48 @@
 package com.hidoc.api.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.crypto.RSASSAVerifier;
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.JWKMatcher;
-import com.nimbusds.jose.jwk.JWKSelector;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.KeyUse;
-import com.nimbusds.jose.proc.BadJOSEException;
 import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class OAuthValidationService {
     private static final Logger log = LoggerFactory.getLogger(OAuthValidationService.class);
 
-    private static final String GOOGLE_JWKS = "https://www.googleapis.com/oauth2/v3/certs";
-    private static final String MSFT_JWKS = "https://login.microsoftonline.com/common/discovery/v2.0/keys";
-
-    private final Map<String, JWKSet> jwkCache = new ConcurrentHashMap<>();
-    private final Map<String, Long> jwkCacheExpiry = new ConcurrentHashMap<>();
-    private static final long JWK_CACHE_TTL_MS = 10 * 60 * 1000; // 10 minutes
+    private final JwksKeyStore jwksKeyStore;
+
+    // Verified tokens keyed by SHA-256 of the raw token; entries live until the token's exp, capped at maxTtl
+    private final Cache<String, UserInfo> validatedTokens;
+
+    public OAuthValidationService(JwksKeyStore jwksKeyStore,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${security.jwt.cache.maximum-size:10000}") long maximumSize,
+                                  @Value("${security.jwt.cache.max-ttl-seconds:300}") long maxTtlSeconds) {
+        this.jwksKeyStore = jwksKeyStore;
+        this.validatedTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry(Duration.ofSeconds(Math.max(1, maxTtlSeconds))))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, validatedTokens, "jwtValidation");
+    }
 
     public boolean isTokenValid(String token) {
         try {
@@ -43,6 +55,22 @@ public class OAuthValidationService {
 
     public UserInfo validateToken(String token) throws ParseException, JOSEException {
         if (token == null || token.isBlank()) return null;
+        String key = tokenHash(token);
+        UserInfo cached = validatedTokens.getIfPresent(key);
+        if (cached != null) {
+            if (cached.getExpiresAt().isAfter(Instant.now())) {
+                return cached;
+            }
+            validatedTokens.invalidate(key);
+        }
+        UserInfo verified = verifyToken(token);
+        if (verified != null) {
+            validatedTokens.put(key, verified);
+        }
+        return verified;
+    }
+
+    private UserInfo verifyToken(String token) throws ParseException, JOSEException {
         SignedJWT jwt = SignedJWT.parse(token);
         String issuer = Optional.ofNullable(jwt.getJWTClaimsSet().getIssuer()).orElse("");
         OAuthProvider provider = detectProvider(issuer);
@@ -80,6 +108,16 @@ public class OAuthValidationService {
         }
     }
 
+    private static String tokenHash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every JVM
+            throw new IllegalStateException(e);
+        }
+    }
+
     private OAuthProvider detectProvider(String issuer) {
         String iss = issuer.toLowerCase(Locale.ROOT);
         if (iss.contains("accounts.google.com")) return OAuthProvider.GOOGLE;
@@ -95,22 +133,9 @@ public class OAuthValidationService {
                 return false;
             }
             String kid = jwt.getHeader().getKeyID();
-            JWKSet jwkSet = getJwkSet(provider);
-            if (jwkSet == null) return false;
-
-            // Azure AD and some IdPs omit the 'alg' field in their JWKS. Matching on 'alg' would fail.
-            // Select by 'kid' (and signature use if present) and verify with RSASSA against the JWT header alg.
-            List<JWK> matches = new JWKSelector(new JWKMatcher.Builder()
-                    .keyID(kid)
-                    .keyUse(KeyUse.SIGNATURE)
-                    .build()).select(jwkSet);
-
-            for (JWK jwk : matches) {
-                if (jwk.toRSAKey() != null) {
-                    RSASSAVerifier verifier = new RSASSAVerifier(jwk.toRSAKey());
-                    if (jwt.verify(verifier)) {
-                        return true;
-                    }
+            for (RSASSAVerifier verifier : jwksKeyStore.verifiers(provider, kid)) {
+                if (jwt.verify(verifier)) {
+                    return true;
                 }
             }
         } catch (Exception e) {
@@ -119,28 +144,28 @@ public class OAuthValidationService {
         return false;
     }
 
-    private JWKSet getJwkSet(OAuthProvider provider) throws MalformedURLException, ParseException, BadJOSEException, JOSEException {
-        String url = switch (provider) {
-            case GOOGLE -> GOOGLE_JWKS;
-            case MICROSOFT -> MSFT_JWKS;
-            default -> null;
-        };
-        if (url == null) return null;
-
-        long now = System.currentTimeMillis();
-        Long exp = jwkCacheExpiry.get(url);
-        if (exp == null || now > exp) {
-            // refresh
-            log.debug("Refreshing JWKs from {}", url);
-            try {
-                JWKSet fresh = JWKSet.load(new URL(url));
-                jwkCache.put(url, fresh);
-                jwkCacheExpiry.put(url, now + JWK_CACHE_TTL_MS);
-            } catch (Exception e) {
-                log.warn("Failed to load JWK set from {}: {}", url, e.getMessage());
-                return null;
-            }
+    private static final class TokenExpiry implements Expiry<String, UserInfo> {
+        private final Duration maxTtl;
+
+        TokenExpiry(Duration maxTtl) {
+            this.maxTtl = maxTtl;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, UserInfo value, long currentTime) {
+            Duration untilExp = Duration.between(Instant.now(), value.getExpiresAt());
+            if (untilExp.isNegative()) return 0;
+            return (untilExp.compareTo(maxTtl) < 0 ? untilExp : maxTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, UserInfo value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, UserInfo value, long currentTime, long currentDuration) {
+            return currentDuration;
         }
-        return jwkCache.get(url);
     }
 }
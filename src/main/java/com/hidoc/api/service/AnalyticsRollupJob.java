@@ -0,0 +1,120 @@
+package com.hidoc.api.service;
+
+import com.hidoc.api.admission.AdmissionController;
+import com.hidoc.api.admission.RequestPriority;
+import com.hidoc.api.exception.OverloadedException;
+import com.hidoc.api.repository.AnalyticsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Incrementally rolls the usage_events log up into analytics_summary. (usage_tracking is a per-user monthly
+ * counter that is overwritten on every request, so it cannot be bucketed by hour.)
+ *
+ * Each closed hour after the watermark (end of the latest HOUR rollup) is aggregated once, in its own
+ * transaction; when the last hour of a day is rolled, the DAY rows are derived from the hourly ones.
+ * Distinct users are stored as HyperLogLog sketches so they can be merged across periods; each hourly
+ * sketch holds every user with a request event in that hour.
+ * Hours are only rolled after a grace period so in-flight usage writes have committed.
+ */
+@Component
+@ConditionalOnProperty(prefix = "analytics.rollup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AnalyticsRollupJob {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsRollupJob.class);
+
+    private final AnalyticsRepository analyticsRepository;
+    private final TransactionTemplate tx;
+    private final AdmissionController admission;
+
+    @Value("${analytics.rollup.grace-seconds:120}")
+    private long graceSeconds = 120;
+
+    @Value("${analytics.rollup.max-hours-per-run:168}")
+    private int maxHoursPerRun = 168;
+
+    public AnalyticsRollupJob(AnalyticsRepository analyticsRepository, PlatformTransactionManager transactionManager,
+                              @Qualifier("analyticsAdmission") AdmissionController admission) {
+        this.analyticsRepository = analyticsRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.admission = admission;
+    }
+
+    @Scheduled(initialDelayString = "${analytics.rollup.initial-delay-ms:30000}",
+            fixedDelayString = "${analytics.rollup.interval-ms:60000}")
+    public void rollup() {
+        Runnable release;
+        try {
+            // Shares the analytics gate with the analytics endpoints as batch work
+            release = admission.enter(RequestPriority.BATCH, null);
+        } catch (OverloadedException ex) {
+            log.debug("Analytics rollup deferred: {}", ex.getMessage());
+            return;
+        }
+        try {
+            LocalDateTime hour = nextHourToRoll();
+            if (hour == null) return;
+            LocalDateTime closedBefore = LocalDateTime.now().minusSeconds(graceSeconds).truncatedTo(ChronoUnit.HOURS);
+            int rolled = 0;
+            while (hour.isBefore(closedBefore) && rolled < maxHoursPerRun) {
+                rollupHour(hour);
+                hour = hour.plusHours(1);
+                rolled++;
+            }
+            if (rolled > 0) {
+                log.debug("Rolled up {} hour(s) of usage; watermark now {}", rolled, hour);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Analytics rollup failed: {}", ex.getMessage());
+        } finally {
+            release.run();
+        }
+    }
+
+    private LocalDateTime nextHourToRoll() {
+        LocalDateTime watermark = analyticsRepository.findRollupWatermark();
+        if (watermark != null) return watermark;
+        // First run: start at the earliest recorded usage
+        LocalDateTime earliest = analyticsRepository.findEarliestUsageTimestamp();
+        return earliest == null ? null : earliest.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private void rollupHour(LocalDateTime start) {
+        LocalDateTime end = start.plusHours(1);
+        tx.executeWithoutResult(status -> {
+            analyticsRepository.rollupRequestsForHour(start, end);
+            analyticsRepository.rollupRequestsByProviderForHour(start, end);
+            rollupUniqueUsersForHour(start, end);
+            if (end.getHour() == 0) {
+                analyticsRepository.rollupDay(end.minusDays(1), end);
+                rollupUniqueUsersForDay(end.minusDays(1), end);
+            }
+        });
+    }
+
+    private void rollupUniqueUsersForHour(LocalDateTime start, LocalDateTime end) {
+        List<String> users = analyticsRepository.findDistinctUsersInRange(start, end);
+        HyperLogLog sketch = new HyperLogLog();
+        users.forEach(sketch::add);
+        analyticsRepository.insertUniqueUsers(start, end, "HOUR", users.size(), sketch.toBytes());
+    }
+
+    private void rollupUniqueUsersForDay(LocalDateTime start, LocalDateTime end) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (byte[] hourly : analyticsRepository.findHourlyUniqueUserSketches(start, end)) {
+            sketch.merge(HyperLogLog.fromBytes(hourly));
+        }
+        analyticsRepository.insertUniqueUsers(start, end, "DAY", sketch.estimate(), sketch.toBytes());
+    }
+}
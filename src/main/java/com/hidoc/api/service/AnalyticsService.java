@@ -1,46 +1,152 @@
 package com.hidoc.api.service;
 
+import com.hidoc.api.domain.AnalyticsHistogram;
+import com.hidoc.api.repository.AnalyticsHistogramRepository;
 import com.hidoc.api.repository.AnalyticsRepository;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.sql.Date;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @Service
 public class AnalyticsService {
 
     private final AnalyticsRepository analyticsRepository;
+    private final AnalyticsHistogramRepository histogramRepository;
 
-    public AnalyticsService(AnalyticsRepository analyticsRepository) {
+    // Ranges up to this length get an exact COUNT(DISTINCT); longer ones merge HyperLogLog sketches
+    @Value("${analytics.unique-users.exact-max-days:7}")
+    private long exactUniqueUsersMaxDays = 7;
+
+    public AnalyticsService(AnalyticsRepository analyticsRepository, AnalyticsHistogramRepository histogramRepository) {
         this.analyticsRepository = analyticsRepository;
+        this.histogramRepository = histogramRepository;
     }
 
+    /**
+     * Totals are answered from HOUR/DAY rollups for the span covered by the rollup job, plus live queries
+     * for the partial hour at the start of the range and the tail after the rollup watermark.
+     */
     public AnalyticsSummaryReport getSummary(LocalDateTime from, LocalDateTime to) {
         var range = normalizeRange(from, to);
-        long total = analyticsRepository.countTotalBetween(range.from(), range.to());
-        long uniqueUsers = analyticsRepository.countDistinctUsersBetween(range.from(), range.to());
-        List<Object[]> byProvider = analyticsRepository.countByProviderBetween(range.from(), range.to());
+        var split = splitRange(range);
+        long total = 0;
         Map<String, Long> providerCounts = new LinkedHashMap<>();
-        for (Object[] row : byProvider) {
-            String provider = Objects.toString(row[0], "UNKNOWN");
-            Long count = ((Number) row[1]).longValue();
-            providerCounts.put(provider, count);
+        for (DateRange live : split.live()) {
+            total += analyticsRepository.countTotalInRange(live.from(), live.to());
+            addProviderCounts(providerCounts, analyticsRepository.countByProviderInRange(live.from(), live.to()));
+        }
+        if (split.rolled() != null) {
+            var r = split.rolled();
+            total += analyticsRepository.sumRolledUpRequests(r.from(), r.to(), ceilDay(r.from()), floorDay(r.to()));
+            addProviderCounts(providerCounts,
+                    analyticsRepository.sumRolledUpRequestsByProvider(r.from(), r.to(), ceilDay(r.from()), floorDay(r.to())));
         }
+        long uniqueUsers = countUniqueUsers(range, split);
         return new AnalyticsSummaryReport(total, uniqueUsers, providerCounts, range.from(), range.to());
     }
 
     public List<TrendPoint> getDailyTrends(LocalDateTime from, LocalDateTime to, String provider) {
         var range = normalizeRange(from, to);
-        List<Object[]> rows;
-        if (provider == null || provider.isBlank()) {
-            rows = analyticsRepository.dailyUsageCountsBetween(range.from(), range.to());
-        } else {
-            rows = analyticsRepository.dailyUsageCountsByProviderBetween(provider, range.from(), range.to());
+        var split = splitRange(range);
+        boolean allProviders = provider == null || provider.isBlank();
+        Map<LocalDate, Long> byDay = new TreeMap<>();
+        for (DateRange live : split.live()) {
+            addDailyCounts(byDay, allProviders
+                    ? analyticsRepository.dailyUsageCountsInRange(live.from(), live.to())
+                    : analyticsRepository.dailyUsageCountsByProviderInRange(provider, live.from(), live.to()));
+        }
+        if (split.rolled() != null) {
+            var r = split.rolled();
+            addDailyCounts(byDay, allProviders
+                    ? analyticsRepository.dailyRolledUpRequests(r.from(), r.to(), ceilDay(r.from()), floorDay(r.to()))
+                    : analyticsRepository.dailyRolledUpRequestsByProvider(provider, r.from(), r.to(), ceilDay(r.from()), floorDay(r.to())));
         }
         List<TrendPoint> result = new ArrayList<>();
+        for (Map.Entry<LocalDate, Long> e : byDay.entrySet()) {
+            // rollups record empty hours explicitly; keep reporting only days with usage
+            if (e.getValue() > 0) {
+                result.add(new TrendPoint(e.getKey(), e.getValue()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Latency or token percentiles over the hour buckets starting in [from, to), merging the per-instance
+     * histograms of each series and grouping them by provider, model or tool.
+     */
+    public List<PercentileReport> getPercentiles(LocalDateTime from, LocalDateTime to, String metric, String groupBy,
+                                                 String provider, String model, String tool) {
+        var range = normalizeRange(from, to);
+        String metricType = switch (metric == null ? "latency" : metric.toLowerCase(Locale.ROOT)) {
+            case "latency" -> UsageHistogramRecorder.LATENCY_MS;
+            case "tokens" -> UsageHistogramRecorder.TOKENS;
+            default -> throw new IllegalArgumentException("metric must be 'latency' or 'tokens'");
+        };
+        String group = groupBy == null ? "provider" : groupBy.toLowerCase(Locale.ROOT);
+        if (!List.of("provider", "model", "tool").contains(group)) {
+            throw new IllegalArgumentException("groupBy must be 'provider', 'model' or 'tool'");
+        }
+        Map<String, Histogram> merged = new TreeMap<>();
+        for (AnalyticsHistogram row : histogramRepository.findInRange(metricType, range.from(), range.to(),
+                blankToNull(provider), blankToNull(model), blankToNull(tool))) {
+            String key = switch (group) {
+                case "model" -> row.getModel();
+                case "tool" -> row.getTool();
+                default -> row.getProvider();
+            };
+            merged.computeIfAbsent(key, k -> new Histogram(UsageHistogramRecorder.highestTrackable(metricType),
+                            UsageHistogramRecorder.significantDigits()))
+                    .add(UsageHistogramRecorder.decode(row.getHistogram()));
+        }
+        List<PercentileReport> result = new ArrayList<>();
+        merged.forEach((key, h) -> result.add(new PercentileReport(key, h.getTotalCount(),
+                h.getValueAtPercentile(50), h.getValueAtPercentile(95), h.getValueAtPercentile(99),
+                h.getMaxValue(), h.getMean())));
+        return result;
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s;
+    }
+
+    /**
+     * Distinct users cannot be summed across periods, so long ranges merge the per-period HyperLogLog
+     * sketches of the rolled span and add the users seen in the live head and tail (~1.6% error).
+     */
+    private long countUniqueUsers(DateRange range, RangeSplit split) {
+        boolean small = Duration.between(range.from(), range.to()).compareTo(Duration.ofDays(exactUniqueUsersMaxDays)) <= 0;
+        if (small || split.rolled() == null) {
+            return analyticsRepository.countDistinctUsersInRange(range.from(), range.to());
+        }
+        var r = split.rolled();
+        HyperLogLog sketch = new HyperLogLog();
+        for (byte[] bytes : analyticsRepository.findUniqueUserSketches(r.from(), r.to(), ceilDay(r.from()), floorDay(r.to()))) {
+            sketch.merge(HyperLogLog.fromBytes(bytes));
+        }
+        for (DateRange live : split.live()) {
+            analyticsRepository.findDistinctUsersInRange(live.from(), live.to()).forEach(sketch::add);
+        }
+        return sketch.estimate();
+    }
+
+    private void addProviderCounts(Map<String, Long> providerCounts, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            String provider = Objects.toString(row[0], "UNKNOWN");
+            long count = ((Number) row[1]).longValue();
+            providerCounts.merge(provider, count, Long::sum);
+        }
+    }
+
+    private void addDailyCounts(Map<LocalDate, Long> byDay, List<Object[]> rows) {
         for (Object[] row : rows) {
             // row[0] is java.sql.Date (from DATE()), row[1] is count
             LocalDate day;
@@ -55,9 +161,41 @@ public class AnalyticsService {
                 day = LocalDate.parse(dayObj.toString());
             }
             long count = ((Number) row[1]).longValue();
-            result.add(new TrendPoint(day, count));
+            byDay.merge(day, count, Long::sum);
         }
-        return result;
+    }
+
+    /**
+     * Splits [from, to) into a live head (up to the first full hour), the span covered by rollups, and a
+     * live tail after the rollup watermark. Without usable rollups the whole range is the tail.
+     */
+    private RangeSplit splitRange(DateRange range) {
+        LocalDateTime watermark = analyticsRepository.findRollupWatermark();
+        LocalDateTime rolledFrom = ceilHour(range.from());
+        LocalDateTime rolledTo = watermark == null ? null : min(range.to().truncatedTo(ChronoUnit.HOURS), watermark);
+        if (rolledTo == null || !rolledFrom.isBefore(rolledTo)) {
+            return new RangeSplit(new DateRange(range.from(), range.from()), null, range);
+        }
+        return new RangeSplit(new DateRange(range.from(), rolledFrom), new DateRange(rolledFrom, rolledTo),
+                new DateRange(rolledTo, range.to()));
+    }
+
+    private static LocalDateTime ceilHour(LocalDateTime t) {
+        LocalDateTime floor = t.truncatedTo(ChronoUnit.HOURS);
+        return floor.equals(t) ? floor : floor.plusHours(1);
+    }
+
+    private static LocalDateTime ceilDay(LocalDateTime t) {
+        LocalDateTime floor = t.truncatedTo(ChronoUnit.DAYS);
+        return floor.equals(t) ? floor : floor.plusDays(1);
+    }
+
+    private static LocalDateTime floorDay(LocalDateTime t) {
+        return t.truncatedTo(ChronoUnit.DAYS);
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
     }
 
     private DateRange normalizeRange(LocalDateTime from, LocalDateTime to) {
@@ -76,5 +214,11 @@ public class AnalyticsService {
     public record AnalyticsSummaryReport(long totalRequests, long uniqueUsers, Map<String, Long> requestsByProvider,
                                          LocalDateTime from, LocalDateTime to) {}
     public record TrendPoint(LocalDate day, long count) {}
+    public record PercentileReport(String group, long count, long p50, long p95, long p99, long max, double mean) {}
     private record DateRange(LocalDateTime from, LocalDateTime to) {}
+    private record RangeSplit(DateRange head, DateRange rolled, DateRange tail) {
+        List<DateRange> live() {
+            return head.from().isBefore(head.to()) ? List.of(head, tail) : List.of(tail);
+        }
+    }
 }
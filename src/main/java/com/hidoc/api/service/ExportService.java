@@ -0,0 +1,226 @@
+package com.hidoc.api.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams usage and health data rows straight from a forward-only JDBC cursor to an output stream as
+ * NDJSON or CSV, so exports run in constant memory regardless of the number of rows.
+ *
+ * PostgreSQL only honours the fetch size inside a transaction, so each export runs in a read-only one.
+ */
+@Service
+public class ExportService {
+
+    private static final String USAGE_SQL = "SELECT id, email, user_id, ai_provider, request_timestamp, success, " +
+            "request_count, error_message, month_year FROM usage_tracking " +
+            "WHERE (user_id = ? OR email = CAST(? AS VARCHAR)) AND request_timestamp >= ? AND request_timestamp < ? " +
+            "ORDER BY request_timestamp, id";
+
+    private static final String HEALTH_SQL = "SELECT id, type, category, value, unit, timestamp, notes, created_at " +
+            "FROM health_data_entries WHERE user_id = ? AND timestamp >= ? AND timestamp < ? " +
+            "AND (CAST(? AS VARCHAR) IS NULL OR type = ?) ORDER BY timestamp, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTx;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Value("${export.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    public ExportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() { return contentType; }
+        public String extension() { return extension; }
+
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) return NDJSON;
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("format must be 'ndjson' or 'csv'");
+            }
+        }
+    }
+
+    /** Usage rows of one user; rows recorded by email carry no user_id, so both are matched. */
+    public void exportUsage(String userId, String email, LocalDateTime from, LocalDateTime to, Format format,
+                            OutputStream out) throws IOException {
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        args.add(email);
+        args.add(Timestamp.valueOf(from));
+        args.add(Timestamp.valueOf(to));
+        stream(USAGE_SQL, args, format, out);
+    }
+
+    public void exportHealthData(String userId, LocalDateTime from, LocalDateTime to, String type, Format format,
+                                 OutputStream out) throws IOException {
+        String t = type == null || type.isBlank() ? null : type;
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        args.add(Timestamp.valueOf(from));
+        args.add(Timestamp.valueOf(to));
+        args.add(t);
+        args.add(t);
+        stream(HEALTH_SQL, args, format, out);
+    }
+
+    private void stream(String sql, List<Object> args, Format format, OutputStream out) throws IOException {
+        RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+        try {
+            readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < args.size(); i++) {
+                    ps.setObject(i + 1, args.get(i));
+                }
+                return ps;
+            }, (ResultSetExtractor<Void>) rs -> {
+                try {
+                    writer.start(columnLabels(rs.getMetaData()));
+                    while (rs.next()) {
+                        writer.write(rs);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+
+    private interface RowWriter {
+        void start(String[] labels) throws IOException;
+        void write(ResultSet rs) throws SQLException, IOException;
+        void finish() throws IOException;
+    }
+
+    private static String[] columnLabels(ResultSetMetaData md) throws SQLException {
+        String[] labels = new String[md.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = md.getColumnLabel(i + 1);
+        }
+        return labels;
+    }
+
+    // Timestamps are written as ISO-8601 local date-times, like the JSON API
+    private static Object columnValue(ResultSet rs, int column) throws SQLException {
+        Object v = rs.getObject(column);
+        return v instanceof Timestamp ts ? ts.toLocalDateTime().toString() : v;
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator gen;
+        private String[] labels;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            this.gen = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+            this.gen.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void start(String[] labels) {
+            this.labels = labels;
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            gen.writeStartObject();
+            for (int i = 0; i < labels.length; i++) {
+                Object v = columnValue(rs, i + 1);
+                gen.writeFieldName(labels[i]);
+                if (v == null) gen.writeNull();
+                else if (v instanceof Boolean b) gen.writeBoolean(b);
+                else if (v instanceof Integer n) gen.writeNumber(n);
+                else if (v instanceof Long n) gen.writeNumber(n);
+                else gen.writeString(v.toString());
+            }
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            gen.flush();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer out;
+        private String[] labels;
+
+        CsvRowWriter(OutputStream out) {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void start(String[] labels) throws IOException {
+            this.labels = labels;
+            writeLine(labels);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            String[] values = new String[labels.length];
+            for (int i = 0; i < labels.length; i++) {
+                Object v = columnValue(rs, i + 1);
+                values[i] = v == null ? "" : v.toString();
+            }
+            writeLine(values);
+        }
+
+        private void writeLine(String[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) out.write(',');
+                out.write(escape(values[i]));
+            }
+            out.write("\r\n");
+        }
+
+        // RFC 4180: quote fields containing separators, quotes or line breaks
+        private static String escape(String s) {
+            if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) return s;
+            return '"' + s.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.hidoc.api.service;
+
+import com.hidoc.api.domain.HealthDataEntry;
+import com.hidoc.api.domain.HealthMeasurement;
+import com.hidoc.api.util.UuidV7;
+import com.hidoc.api.web.dto.HealthReading;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Bulk ingestion of device readings. Rows are validated and de-duplicated as they are read, then written
+ * with JDBC batch inserts in chunks, one transaction per chunk, so a large upload never holds a long
+ * transaction or a large persistence context.
+ *
+ * Entry ids are UUIDv7 values whose time part is the reading's timestamp and whose random part is derived
+ * from its content (user, type, timestamp, value, unit), so a device that re-sends readings after a failed
+ * sync creates no duplicates: repeated ids are skipped by ON CONFLICT.
+ */
+@Service
+public class HealthDataIngestService {
+
+    private static final String INSERT_ENTRY = "INSERT INTO health_data_entries (id, user_id, type, category, value, unit, timestamp, notes, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, now()) ON CONFLICT (id) DO NOTHING";
+
+    private static final String UPSERT_MEASUREMENT = "INSERT INTO health_measurements (entry_id, user_id, metric, value, value2, unit, measured_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (entry_id) DO NOTHING";
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final HealthSummaryService summaryService;
+
+    @Value("${health.ingest.chunk-size:500}")
+    private int chunkSize = 500;
+
+    @Value("${health.ingest.max-entries:10000}")
+    private int maxEntries = 10_000;
+
+    public HealthDataIngestService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   HealthSummaryService summaryService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.summaryService = summaryService;
+    }
+
+    public IngestResult ingest(String userId, Iterator<HealthReading> readings) {
+        int received = 0, inserted = 0, duplicates = 0, rejected = 0;
+        List<RowError> errors = new ArrayList<>();
+        Map<UUID, HealthDataEntry> chunk = new LinkedHashMap<>();
+        while (readings.hasNext()) {
+            if (received >= maxEntries) {
+                throw new IllegalArgumentException("At most " + maxEntries + " readings per request");
+            }
+            int index = received++;
+            HealthReading r = readings.next();
+            String problem = validate(r);
+            if (problem != null) {
+                rejected++;
+                if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new RowError(index, problem));
+                continue;
+            }
+            HealthDataEntry entry = toEntry(userId, r);
+            if (chunk.putIfAbsent(entry.getUuid(), entry) != null) {
+                duplicates++;
+                continue;
+            }
+            if (chunk.size() >= chunkSize) {
+                int written = writeChunk(chunk.values());
+                inserted += written;
+                duplicates += chunk.size() - written;
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            int written = writeChunk(chunk.values());
+            inserted += written;
+            duplicates += chunk.size() - written;
+        }
+        return new IngestResult(received, inserted, duplicates, rejected, errors);
+    }
+
+    private int writeChunk(Collection<HealthDataEntry> entries) {
+        List<HealthDataEntry> rows = new ArrayList<>(entries);
+        Integer written = tx.execute(status -> {
+            int[] counts = jdbcTemplate.batchUpdate(INSERT_ENTRY, rows, rows.size(), (ps, e) -> {
+                ps.setObject(1, e.getUuid());
+                ps.setString(2, e.getUserId());
+                ps.setString(3, e.getType());
+                ps.setString(4, e.getCategory());
+                ps.setString(5, e.getValue());
+                ps.setString(6, e.getUnit());
+                ps.setTimestamp(7, Timestamp.valueOf(e.getTimestamp()));
+                ps.setString(8, e.getNotes());
+            })[0];
+            List<HealthMeasurement> measurements = new ArrayList<>();
+            int n = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    n++;
+                    HealthMeasurementParser.parse(rows.get(i)).ifPresent(measurements::add);
+                }
+            }
+            if (!measurements.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_MEASUREMENT, measurements, measurements.size(), (ps, m) -> {
+                    ps.setObject(1, m.getEntryId());
+                    ps.setString(2, m.getUserId());
+                    ps.setString(3, m.getMetric().name());
+                    ps.setDouble(4, m.getValue());
+                    if (m.getValue2() != null) ps.setDouble(5, m.getValue2());
+                    else ps.setNull(5, Types.DOUBLE);
+                    ps.setString(6, m.getUnit());
+                    ps.setTimestamp(7, Timestamp.valueOf(m.getMeasuredAt()));
+                });
+            }
+            return n;
+        });
+        if (written == null || written == 0) return 0;
+        // Per chunk, so readings committed before a later failure are reflected too
+        summaryService.invalidate(rows.get(0).getUserId());
+        return written;
+    }
+
+    private static String validate(HealthReading r) {
+        if (r == null) return "reading is required";
+        if (r.getType() == null || r.getType().isBlank()) return "type is required";
+        if (r.getType().length() > 100) return "type is longer than 100 characters";
+        if (r.getValue() == null || r.getValue().isBlank()) return "value is required";
+        if (r.getValue().length() > 2000) return "value is longer than 2000 characters";
+        if (r.getTimestamp() == null) return "timestamp is required";
+        if (r.getTimestamp().isAfter(LocalDateTime.now().plusDays(1))) return "timestamp is in the future";
+        if (r.getCategory() != null && r.getCategory().length() > 100) return "category is longer than 100 characters";
+        if (r.getUnit() != null && r.getUnit().length() > 50) return "unit is longer than 50 characters";
+        return null;
+    }
+
+    private static HealthDataEntry toEntry(String userId, HealthReading r) {
+        HealthDataEntry e = new HealthDataEntry();
+        String value = r.getValue().trim();
+        String unit = r.getUnit() == null || r.getUnit().isBlank() ? null : r.getUnit().trim();
+        e.setUuid(contentId(userId, r.getType().trim(), r.getTimestamp(), value, unit));
+        e.setUserId(userId);
+        e.setType(r.getType().trim());
+        e.setCategory(r.getCategory() == null || r.getCategory().isBlank() ? "general" : r.getCategory().trim());
+        e.setValue(value);
+        e.setUnit(unit);
+        e.setTimestamp(r.getTimestamp());
+        e.setNotes(r.getNotes());
+        return e;
+    }
+
+    private static UUID contentId(String userId, String type, LocalDateTime timestamp, String value, String unit) {
+        String key = userId + '\u0000' + type + '\u0000' + timestamp + '\u0000' + value + '\u0000' + Objects.toString(unit, "");
+        return UuidV7.fromContent(timestamp.toInstant(ZoneOffset.UTC).toEpochMilli(), key);
+    }
+
+    public record RowError(int index, String message) {}
+    public record IngestResult(int received, int inserted, int duplicates, int rejected, List<RowError> errors) {}
+}
@@ -1,30 +1,56 @@
 package com.hidoc.api.service;
 
 import com.hidoc.api.domain.HealthDataEntry;
+import com.hidoc.api.domain.HealthMeasurement;
+import com.hidoc.api.domain.HealthMetric;
 import com.hidoc.api.repository.HealthDataRepository;
+import com.hidoc.api.repository.HealthMeasurementRepository;
+import com.hidoc.api.util.UuidV7;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class HealthDataService {
 
+    private static final List<String> TREND_BUCKETS = List.of("hour", "day", "week", "month");
+
     private final HealthDataRepository healthDataRepository;
+    private final HealthMeasurementRepository measurementRepository;
+    private final EntityManager entityManager;
+    private final HealthSummaryService summaryService;
+
+    // Applied when a client sends neither cursor nor limit; more rows are announced by the next cursor
+    @Value("${health.history.default-page-size:1000}")
+    private int defaultPageSize = 1000;
 
-    public HealthDataService(HealthDataRepository healthDataRepository) {
+    @Value("${health.history.max-page-size:1000}")
+    private int maxPageSize = 1000;
+
+    public HealthDataService(HealthDataRepository healthDataRepository,
+                             HealthMeasurementRepository measurementRepository, EntityManager entityManager,
+                             HealthSummaryService summaryService) {
         this.healthDataRepository = healthDataRepository;
+        this.measurementRepository = measurementRepository;
+        this.entityManager = entityManager;
+        this.summaryService = summaryService;
     }
 
     @Transactional
     public HealthDataEntry processHealthMessage(String message, String userId, boolean persist) {
         // Minimal interpretation: create a generic entry from the message.
         HealthDataEntry entry = new HealthDataEntry();
-        entry.setId(UUID.randomUUID().toString());
+        entry.setUuid(UuidV7.generate());
         entry.setUserId(userId);
         entry.setType("note");
         entry.setCategory("general");
@@ -32,40 +58,144 @@ public class HealthDataService {
         entry.setTimestamp(LocalDateTime.now());
         entry.setNotes("auto-parsed");
         if (persist) {
-            return healthDataRepository.save(entry);
+            return saveWithMeasurement(entry, true);
         }
         return entry;
     }
 
     @Transactional
     public HealthDataEntry saveHealthData(HealthDataEntry entry) {
-        if (entry.getId() == null || entry.getId().isBlank()) {
-            entry.setId(UUID.randomUUID().toString());
+        boolean created = entry.getUuid() == null;
+        if (created) {
+            entry.setUuid(UuidV7.generate());
         }
         if (entry.getTimestamp() == null) {
             entry.setTimestamp(LocalDateTime.now());
         }
-        return healthDataRepository.save(entry);
+        return saveWithMeasurement(entry, created);
+    }
+
+    // Parses the value once at write time so trend queries read typed numbers instead of text
+    private HealthDataEntry saveWithMeasurement(HealthDataEntry entry, boolean created) {
+        HealthDataEntry saved = healthDataRepository.saveAndFlush(entry);
+        Optional<HealthMeasurement> measurement = HealthMeasurementParser.parse(saved);
+        if (measurement.isPresent()) {
+            measurementRepository.upsert(measurement.get());
+        } else {
+            measurementRepository.deleteByEntryId(saved.getUuid());
+        }
+        // A client-supplied id may replace an earlier reading, which cannot be folded in incrementally
+        if (created && measurement.isPresent()) {
+            summaryService.applyAfterCommit(measurement.get());
+        } else if (!created) {
+            summaryService.invalidateAfterCommit(saved.getUserId());
+        }
+        return saved;
     }
 
+    /**
+     * One page of history in (timestamp, id) order. The returned cursor encodes the last entry and is
+     * passed back to fetch the next page; it is null on the last page. Without a limit a page holds
+     * {@code health.history.default-page-size} entries, so no request loads an unbounded window; the
+     * NDJSON stream endpoint serves a whole window.
+     */
     @Transactional(readOnly = true)
-    public List<HealthDataEntry> getHistory(String userId, LocalDateTime from, LocalDateTime to, String type) {
+    public HistoryPage getHistoryPage(String userId, LocalDateTime from, LocalDateTime to, String type,
+                                      String cursor, Integer limit) {
         LocalDateTime fromTs = from != null ? from : LocalDateTime.of(LocalDate.now().minusDays(30), LocalTime.MIN);
         LocalDateTime toTs = to != null ? to : LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-        if (type == null || type.isBlank()) {
-            return healthDataRepository.findByUserIdAndTimestampBetweenOrderByTimestampAsc(userId, fromTs, toTs);
+        int size = Math.max(1, Math.min(limit == null ? defaultPageSize : limit, maxPageSize));
+        // Without a cursor start just before the window: every id sorts after the nil UUID
+        LocalDateTime afterTs = fromTs;
+        UUID afterId = new UUID(0, 0);
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            afterTs = LocalDateTime.parse(parts[0]);
+            afterId = UUID.fromString(parts[1]);
         }
-        return healthDataRepository.findByUserIdAndTypeAndTimestampBetweenOrderByTimestampAsc(userId, type, fromTs, toTs);
+        String t = type == null || type.isBlank() ? null : type;
+        List<HealthDataEntry> rows = healthDataRepository.findPageAfter(userId, t, afterTs, afterId, toTs, Limit.of(size + 1));
+        if (rows.size() <= size) {
+            return new HistoryPage(rows, null);
+        }
+        List<HealthDataEntry> page = rows.subList(0, size);
+        HealthDataEntry last = page.get(size - 1);
+        return new HistoryPage(page, encodeCursor(last));
     }
 
+    /**
+     * Streams the whole window to {@code sink} from a database cursor, detaching each entry once it has
+     * been handed over so the persistence context stays empty.
+     */
     @Transactional(readOnly = true)
-    public List<TrendPoint> getTrends(String userId, LocalDateTime from, LocalDateTime to, String type) {
-        List<HealthDataEntry> entries = getHistory(userId, from, to, type);
-        Map<LocalDate, Long> byDay = entries.stream()
-                .collect(Collectors.groupingBy(e -> e.getTimestamp().toLocalDate(), TreeMap::new, Collectors.counting()));
-        return byDay.entrySet().stream()
-                .map(e -> new TrendPoint(e.getKey(), e.getValue()))
-                .collect(Collectors.toList());
+    public void streamHistory(String userId, LocalDateTime from, LocalDateTime to, String type,
+                              Consumer<HealthDataEntry> sink) {
+        LocalDateTime fromTs = from != null ? from : LocalDateTime.of(LocalDate.now().minusDays(30), LocalTime.MIN);
+        LocalDateTime toTs = to != null ? to : LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
+        String t = type == null || type.isBlank() ? null : type;
+        try (Stream<HealthDataEntry> entries = healthDataRepository.streamByUser(userId, t, fromTs, toTs)) {
+            entries.forEach(e -> {
+                sink.accept(e);
+                entityManager.detach(e);
+            });
+        }
+    }
+
+    private static String encodeCursor(HealthDataEntry last) {
+        String raw = last.getTimestamp() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            if (parts.length != 2) throw new IllegalArgumentException();
+            LocalDateTime.parse(parts[0]);
+            UUID.fromString(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Entry counts per hour/day/week/month bucket, aggregated in the database. Types that map to a
+     * {@link HealthMetric} are read from the typed measurements (values in the metric's canonical unit);
+     * for other types, entries whose value is a plain number contribute to avg/min/max.
+     */
+    @Transactional(readOnly = true)
+    public List<TrendPoint> getTrends(String userId, LocalDateTime from, LocalDateTime to, String type, String bucket) {
+        LocalDateTime fromTs = from != null ? from : LocalDateTime.of(LocalDate.now().minusDays(30), LocalTime.MIN);
+        LocalDateTime toTs = to != null ? to : LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
+        String field = bucket == null || bucket.isBlank() ? "day" : bucket.trim().toLowerCase(Locale.ROOT);
+        if (!TREND_BUCKETS.contains(field)) {
+            throw new IllegalArgumentException("bucket must be one of " + TREND_BUCKETS);
+        }
+        String t = type == null || type.isBlank() ? null : type;
+        Optional<HealthMetric> metric = HealthMetric.fromType(t);
+        List<Object[]> rows = metric.isPresent()
+                ? measurementRepository.aggregate(userId, metric.get().name(), fromTs, toTs, field)
+                : healthDataRepository.aggregateTrends(userId, t, fromTs, toTs, field);
+        List<TrendPoint> points = new ArrayList<>();
+        for (Object[] row : rows) {
+            LocalDateTime start = toLocalDateTime(row[0]);
+            points.add(new TrendPoint(start.toLocalDate(), start, ((Number) row[1]).longValue(),
+                    toDouble(row[2]), toDouble(row[3]), toDouble(row[4])));
+        }
+        return points;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof java.sql.Timestamp ts) return ts.toLocalDateTime();
+        if (value instanceof LocalDateTime ldt) return ldt;
+        if (value instanceof java.time.OffsetDateTime odt) return odt.toLocalDateTime();
+        if (value instanceof java.time.Instant i) return LocalDateTime.ofInstant(i, java.time.ZoneOffset.UTC);
+        return LocalDateTime.parse(value.toString().replace(' ', 'T'));
+    }
+
+    private static Double toDouble(Object value) {
+        return value == null ? null : ((Number) value).doubleValue();
     }
 
     private String truncate(String s, int max) {
@@ -74,5 +204,7 @@ public class HealthDataService {
         return s.substring(0, max);
     }
 
-    public record TrendPoint(LocalDate date, long count) {}
+    // date is kept for existing clients; bucketStart carries the time part for hourly buckets
+    public record TrendPoint(LocalDate date, LocalDateTime bucketStart, long count, Double avg, Double min, Double max) {}
+    public record HistoryPage(List<HealthDataEntry> entries, String nextCursor) {}
 }
@@ -0,0 +1,65 @@
+package com.hidoc.api.service;
+
+import com.hidoc.api.domain.HealthDataEntry;
+import com.hidoc.api.repository.HealthDataRepository;
+import com.hidoc.api.repository.HealthMeasurementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One-off backfill of health_measurements for entries written before typed measurements existed.
+ * Enable with {@code health.measurements.backfill=true} for a single start-up, then switch it off again.
+ */
+@Component
+@ConditionalOnProperty(prefix = "health.measurements", name = "backfill", havingValue = "true")
+public class HealthMeasurementBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthMeasurementBackfill.class);
+    private static final int PAGE_SIZE = 500;
+
+    private final HealthDataRepository healthDataRepository;
+    private final HealthMeasurementRepository measurementRepository;
+    private final TransactionTemplate tx;
+
+    public HealthMeasurementBackfill(HealthDataRepository healthDataRepository,
+                                     HealthMeasurementRepository measurementRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.healthDataRepository = healthDataRepository;
+        this.measurementRepository = measurementRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        UUID after = new UUID(0, 0);
+        long parsed = 0;
+        while (after != null) {
+            UUID from = after;
+            long[] count = {0};
+            after = tx.execute(status -> {
+                List<HealthDataEntry> page = healthDataRepository.findByIdGreaterThanOrderByIdAsc(from, Limit.of(PAGE_SIZE));
+                for (HealthDataEntry entry : page) {
+                    HealthMeasurementParser.parse(entry).ifPresent(m -> {
+                        measurementRepository.upsert(m);
+                        count[0]++;
+                    });
+                }
+                return page.size() < PAGE_SIZE ? null : page.get(page.size() - 1).getUuid();
+            });
+            parsed += count[0];
+        }
+        log.info("Health measurement backfill finished: {} measurement(s) written", parsed);
+    }
+}
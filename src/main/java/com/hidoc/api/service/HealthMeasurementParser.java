@@ -0,0 +1,66 @@
+package com.hidoc.api.service;
+
+import com.hidoc.api.domain.HealthDataEntry;
+import com.hidoc.api.domain.HealthMeasurement;
+import com.hidoc.api.domain.HealthMetric;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a free-text entry into a typed measurement: the metric comes from the entry type, the value
+ * from the leading number (or "a/b" pair) of the text, and the unit from the entry's unit or the text
+ * after the number. Values are converted to the metric's canonical unit.
+ */
+final class HealthMeasurementParser {
+
+    private static final Pattern READING =
+            Pattern.compile("^\\s*(-?\\d+(?:\\.\\d+)?)\\s*(?:/\\s*(-?\\d+(?:\\.\\d+)?))?\\s*(.*)$");
+
+    private HealthMeasurementParser() {}
+
+    static Optional<HealthMeasurement> parse(HealthDataEntry entry) {
+        Optional<HealthMetric> metric = HealthMetric.fromType(entry.getType());
+        if (metric.isEmpty() || entry.getValue() == null || entry.getTimestamp() == null) return Optional.empty();
+        Matcher m = READING.matcher(entry.getValue());
+        if (!m.matches()) return Optional.empty();
+        HealthMetric mt = metric.get();
+        String unit = entry.getUnit() != null && !entry.getUnit().isBlank() ? entry.getUnit() : m.group(3);
+        String u = unit == null ? "" : unit.trim().toLowerCase(Locale.ROOT);
+        double value = Double.parseDouble(m.group(1));
+        Double value2 = m.group(2) != null ? Double.valueOf(m.group(2)) : null;
+        if (value2 != null && mt != HealthMetric.BLOOD_PRESSURE) return Optional.empty();
+
+        HealthMeasurement out = new HealthMeasurement();
+        out.setEntryId(entry.getUuid());
+        out.setUserId(entry.getUserId());
+        out.setMetric(mt);
+        out.setValue(toCanonical(mt, value, u));
+        out.setValue2(value2 == null ? null : toCanonical(mt, value2, u));
+        out.setUnit(mt.unit());
+        out.setMeasuredAt(entry.getTimestamp());
+        return Optional.of(out);
+    }
+
+    // Unknown or missing units are taken to be the canonical unit already
+    static double toCanonical(HealthMetric metric, double v, String unit) {
+        return switch (metric) {
+            case BLOOD_GLUCOSE -> unit.startsWith("mmol") ? v * 18.0182 : v;
+            case WEIGHT -> switch (unit) {
+                case "lb", "lbs", "pound", "pounds" -> v * 0.45359237;
+                case "g" -> v / 1000;
+                default -> v;
+            };
+            case HEIGHT -> switch (unit) {
+                case "m" -> v * 100;
+                case "in", "inch", "inches" -> v * 2.54;
+                default -> v;
+            };
+            case BODY_TEMPERATURE -> unit.equals("f") || unit.equals("°f") || unit.startsWith("fahrenheit") ? (v - 32) * 5 / 9 : v;
+            case SLEEP_DURATION -> unit.startsWith("min") ? v / 60 : v;
+            default -> v;
+        };
+    }
+}
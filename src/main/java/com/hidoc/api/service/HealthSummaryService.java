@@ -0,0 +1,192 @@
+package com.hidoc.api.service;
+
+import com.hidoc.api.domain.HealthMeasurement;
+import com.hidoc.api.domain.HealthMetric;
+import com.hidoc.api.repository.HealthMeasurementRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-user health summary (latest reading and 7/30-day aggregates per metric) used to enrich AI prompts.
+ *
+ * Summaries are computed from health_measurements and kept in the healthSummary cache. Single saves update
+ * the cached summary in place after commit instead of dropping it; bulk ingests and edits evict it. The
+ * windows are anchored at {@code computedAt}, so a summary older than {@code health.summary.max-age-seconds}
+ * is recomputed on read, which also bounds the effect of concurrent updates racing across instances.
+ */
+@Service
+public class HealthSummaryService {
+
+    public static final String CACHE = "healthSummary";
+
+    private final HealthMeasurementRepository measurementRepository;
+    private final CacheManager cacheManager;
+
+    @Value("${health.summary.max-age-seconds:900}")
+    private long maxAgeSeconds = 900;
+
+    public HealthSummaryService(HealthMeasurementRepository measurementRepository, CacheManager cacheManager) {
+        this.measurementRepository = measurementRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    @Transactional(readOnly = true)
+    public HealthSummary getSummary(String userId) {
+        Cache cache = cacheManager.getCache(CACHE);
+        HealthSummary summary = cache == null ? null : cache.get(userId, HealthSummary.class);
+        if (summary == null || isStale(summary)) {
+            summary = compute(userId);
+            if (cache != null) {
+                cache.put(userId, summary);
+            }
+        }
+        return summary;
+    }
+
+    /** Folds a newly stored measurement into the cached summary once the surrounding transaction commits. */
+    public void applyAfterCommit(HealthMeasurement measurement) {
+        afterCommit(() -> apply(measurement));
+    }
+
+    public void invalidateAfterCommit(String userId) {
+        afterCommit(() -> invalidate(userId));
+    }
+
+    public void invalidate(String userId) {
+        if (userId == null || userId.isBlank()) return;
+        Cache cache = cacheManager.getCache(CACHE);
+        if (cache != null) {
+            cache.evict(userId);
+        }
+    }
+
+    private void apply(HealthMeasurement m) {
+        Cache cache = cacheManager.getCache(CACHE);
+        if (cache == null) return;
+        HealthSummary current = cache.get(m.getUserId(), HealthSummary.class);
+        if (current == null) return;
+        // Evict first: puts are not broadcast, evictions drop the other instances' near copies
+        cache.evict(m.getUserId());
+        if (!isStale(current)) {
+            cache.put(m.getUserId(), current.with(m));
+        }
+    }
+
+    private HealthSummary compute(String userId) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, MetricSummary> metrics = new TreeMap<>();
+        for (Object[] row : measurementRepository.findLatestPerMetric(userId)) {
+            String metric = (String) row[0];
+            metrics.put(metric, new MetricSummary(unitOf(metric), toDouble(row[1]), toDouble(row[2]),
+                    toLocalDateTime(row[3]), Window.EMPTY, Window.EMPTY));
+        }
+        for (Object[] row : measurementRepository.summarizeWindows(userId, now.minusDays(7), now.minusDays(30))) {
+            String metric = (String) row[0];
+            Window last7 = new Window(((Number) row[1]).longValue(), sum(row[2]), toDouble(row[3]), toDouble(row[4]));
+            Window last30 = new Window(((Number) row[5]).longValue(), sum(row[6]), toDouble(row[7]), toDouble(row[8]));
+            MetricSummary latest = metrics.get(metric);
+            if (latest != null) {
+                metrics.put(metric, new MetricSummary(latest.unit(), latest.latestValue(), latest.latestValue2(),
+                        latest.latestAt(), last7, last30));
+            }
+        }
+        return new HealthSummary(userId, now, metrics);
+    }
+
+    private boolean isStale(HealthSummary summary) {
+        return summary.computedAt() == null
+                || summary.computedAt().isBefore(LocalDateTime.now().minus(Duration.ofSeconds(maxAgeSeconds)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String unitOf(String metric) {
+        try {
+            return HealthMetric.valueOf(metric).unit();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value == null) return null;
+        if (value instanceof java.sql.Timestamp ts) return ts.toLocalDateTime();
+        if (value instanceof LocalDateTime ldt) return ldt;
+        if (value instanceof java.time.OffsetDateTime odt) return odt.toLocalDateTime();
+        if (value instanceof java.time.Instant i) return LocalDateTime.ofInstant(i, java.time.ZoneOffset.UTC);
+        return LocalDateTime.parse(value.toString().replace(' ', 'T'));
+    }
+
+    private static Double toDouble(Object value) {
+        return value == null ? null : ((Number) value).doubleValue();
+    }
+
+    private static double sum(Object value) {
+        return value == null ? 0 : ((Number) value).doubleValue();
+    }
+
+    /** Summary of one user's measurements, keyed by {@link HealthMetric} name. */
+    public record HealthSummary(String userId, LocalDateTime computedAt, Map<String, MetricSummary> metrics) {
+
+        HealthSummary with(HealthMeasurement m) {
+            Map<String, MetricSummary> updated = new TreeMap<>(metrics == null ? Map.of() : metrics);
+            String key = m.getMetric().name();
+            MetricSummary previous = updated.getOrDefault(key,
+                    new MetricSummary(m.getMetric().unit(), null, null, null, Window.EMPTY, Window.EMPTY));
+            updated.put(key, previous.with(m, computedAt));
+            return new HealthSummary(userId, computedAt, updated);
+        }
+    }
+
+    /** Latest reading plus 7- and 30-day windows; for blood pressure the windows cover the systolic value. */
+    public record MetricSummary(String unit, Double latestValue, Double latestValue2, LocalDateTime latestAt,
+                                Window last7Days, Window last30Days) {
+
+        MetricSummary with(HealthMeasurement m, LocalDateTime anchor) {
+            LocalDateTime at = m.getMeasuredAt();
+            boolean newer = latestAt == null || !at.isBefore(latestAt);
+            Window w7 = at.isBefore(anchor.minusDays(7)) ? last7Days : last7Days.add(m.getValue());
+            Window w30 = at.isBefore(anchor.minusDays(30)) ? last30Days : last30Days.add(m.getValue());
+            return new MetricSummary(unit,
+                    newer ? Double.valueOf(m.getValue()) : latestValue,
+                    newer ? m.getValue2() : latestValue2,
+                    newer ? at : latestAt,
+                    w7, w30);
+        }
+    }
+
+    public record Window(long count, double sum, Double min, Double max) {
+        static final Window EMPTY = new Window(0, 0, null, null);
+
+        Window add(double value) {
+            return new Window(count + 1, sum + value,
+                    min == null ? value : Math.min(min, value),
+                    max == null ? value : Math.max(max, value));
+        }
+
+        public Double average() {
+            return count == 0 ? null : sum / count;
+        }
+    }
+}
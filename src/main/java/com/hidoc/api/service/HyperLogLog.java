@@ -0,0 +1,91 @@
+package com.hidoc.api.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mergeable HyperLogLog sketch for distinct-user estimates.
+ *
+ * Uses 2^12 one-byte registers (~1.6% standard error, 4 KB serialized) with linear counting for small
+ * cardinalities. The serialized form is the precision byte followed by the registers, so sketches stored
+ * for different periods can be merged by taking the register-wise maximum.
+ */
+final class HyperLogLog {
+
+    static final int PRECISION = 12;
+    private static final int REGISTERS = 1 << PRECISION;
+
+    private final byte[] registers;
+
+    HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != REGISTERS + 1 || bytes[0] != PRECISION) {
+            throw new IllegalArgumentException("Unsupported HyperLogLog sketch");
+        }
+        byte[] registers = new byte[REGISTERS];
+        System.arraycopy(bytes, 1, registers, 0, REGISTERS);
+        return new HyperLogLog(registers);
+    }
+
+    byte[] toBytes() {
+        byte[] bytes = new byte[REGISTERS + 1];
+        bytes[0] = PRECISION;
+        System.arraycopy(registers, 0, bytes, 1, REGISTERS);
+        return bytes;
+    }
+
+    void add(String value) {
+        if (value == null) return;
+        long hash = hash(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // rank of the first set bit in the remaining 52 bits; the sentinel bit caps it at 53
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) zeros++;
+        }
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double estimate = alpha * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    // FNV-1a over the UTF-8 bytes followed by the MurmurHash3 finalizer to spread the bits
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
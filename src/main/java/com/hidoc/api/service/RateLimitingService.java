@@ -1,6 +1,8 @@
 package com.hidoc.api.service;
 
+import com.hidoc.api.domain.UsageEvent;
 import com.hidoc.api.domain.UsageTracking;
+import com.hidoc.api.repository.UsageEventRepository;
 import com.hidoc.api.repository.UsageTrackingRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,12 +21,15 @@ public class RateLimitingService {
     private static final Logger log = LoggerFactory.getLogger(RateLimitingService.class);
 
     private final UsageTrackingRepository usageTrackingRepository;
+    private final UsageEventRepository usageEventRepository;
 
     @Value("${rate-limiting.monthly-limit:100}")
     private int monthlyLimit = 100;
 
-    public RateLimitingService(UsageTrackingRepository usageTrackingRepository) {
+    public RateLimitingService(UsageTrackingRepository usageTrackingRepository,
+                               UsageEventRepository usageEventRepository) {
         this.usageTrackingRepository = usageTrackingRepository;
+        this.usageEventRepository = usageEventRepository;
     }
 
     // Preferred: email-based check
@@ -74,6 +79,8 @@ public class RateLimitingService {
                 rec.setErrorMessage(truncate(errorMessage, 500));
             }
             usageTrackingRepository.save(rec);
+            // The monthly row is overwritten in place; analytics read the request from the event log
+            usageEventRepository.save(new UsageEvent(email, provider, success, rec.getRequestTimestamp()));
         } catch (DataIntegrityViolationException ex) {
             String details = ex.getMostSpecificCause() != null ? ex.getMostSpecificCause().getMessage() : ex.getMessage();
             log.warn("Usage record skipped: subscriber missing for email={} provider={} cause={}", email, provider, details);
@@ -110,6 +117,7 @@ public class RateLimitingService {
                 rec.setErrorMessage(truncate(errorMessage, 500));
             }
             usageTrackingRepository.save(rec);
+            usageEventRepository.save(new UsageEvent(userId, provider, success, rec.getRequestTimestamp()));
         } catch (DataIntegrityViolationException ex) {
             String details = ex.getMostSpecificCause() != null ? ex.getMostSpecificCause().getMessage() : ex.getMessage();
             log.warn("Usage record skipped: subscriber missing for user_id={} provider={} cause={}", userId, provider, details);
@@ -2,8 +2,12 @@ package com.hidoc.api.service;
 
 import com.hidoc.api.domain.Subscriber;
 import com.hidoc.api.repository.SubscriberRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -11,13 +15,17 @@ import java.util.Optional;
 @Service
 public class SubscriberService {
 
+    private static final String CACHE_BY_ID = "subscriberById";
+    private static final String CACHE_BY_EMAIL = "subscriberByEmail";
+
     private final SubscriberRepository subscriberRepository;
+    private final CacheManager cacheManager;
 
-    public SubscriberService(SubscriberRepository subscriberRepository) {
+    public SubscriberService(SubscriberRepository subscriberRepository, CacheManager cacheManager) {
         this.subscriberRepository = subscriberRepository;
+        this.cacheManager = cacheManager;
     }
 
-    @org.springframework.cache.annotation.CacheEvict(cacheNames = {"subscriberById", "subscriberByEmail"}, allEntries = true)
     @Transactional
     public Subscriber createOrUpdate(Subscriber input) {
         // Upsert by userId if present; otherwise, by email
@@ -31,6 +39,8 @@ public class SubscriberService {
 
         if (existingOpt.isPresent()) {
             Subscriber existing = existingOpt.get();
+            // Evict under the previous email as well, in case this update changes it
+            evictAfterCommit(existing.getUserId(), existing.getEmail());
             // Update mutable fields
             if (input.getEmail() != null && !input.getEmail().isBlank()) {
                 existing.setEmail(input.getEmail());
@@ -48,7 +58,9 @@ public class SubscriberService {
                 existing.setAppStorePlatform(input.getAppStorePlatform());
             }
             existing.setUpdatedAt(LocalDateTime.now());
-            return subscriberRepository.save(existing);
+            Subscriber saved = subscriberRepository.save(existing);
+            evictAfterCommit(saved.getUserId(), saved.getEmail());
+            return saved;
         } else {
             // Create
             if (input.getUserId() == null || input.getUserId().isBlank()) {
@@ -60,29 +72,62 @@ public class SubscriberService {
             }
             input.setCreatedAt(LocalDateTime.now());
             input.setUpdatedAt(input.getCreatedAt());
-            return subscriberRepository.save(input);
+            Subscriber saved = subscriberRepository.save(input);
+            // Drop cached "not found" results for the new keys
+            evictAfterCommit(saved.getUserId(), saved.getEmail());
+            return saved;
         }
     }
 
     @Transactional(readOnly = true)
-    @org.springframework.cache.annotation.Cacheable(cacheNames = "subscriberById", key = "#p0")
+    @org.springframework.cache.annotation.Cacheable(cacheNames = CACHE_BY_ID, key = "#p0")
     public Optional<Subscriber> findByUserId(String userId) {
         return subscriberRepository.findById(userId);
     }
 
     @Transactional(readOnly = true)
-    @org.springframework.cache.annotation.Cacheable(cacheNames = "subscriberByEmail", key = "#p0")
+    @org.springframework.cache.annotation.Cacheable(cacheNames = CACHE_BY_EMAIL, key = "#p0")
     public Optional<Subscriber> findByEmail(String email) {
         return subscriberRepository.findByEmail(email);
     }
 
     @Transactional
-    @org.springframework.cache.annotation.CacheEvict(cacheNames = {"subscriberById", "subscriberByEmail"}, allEntries = true)
     public Optional<Subscriber> updateStatus(String userId, String newStatus) {
         return subscriberRepository.findById(userId).map(sub -> {
             sub.setSubscriptionStatus(newStatus);
             sub.setUpdatedAt(LocalDateTime.now());
-            return subscriberRepository.save(sub);
+            Subscriber saved = subscriberRepository.save(sub);
+            evictAfterCommit(saved.getUserId(), saved.getEmail());
+            return saved;
         });
     }
+
+    /**
+     * Evicts the cached entries of a single subscriber once the surrounding transaction commits, so a
+     * concurrent reader cannot repopulate the cache with the pre-commit row.
+     */
+    private void evictAfterCommit(String userId, String email) {
+        Runnable evict = () -> {
+            evict(CACHE_BY_ID, userId);
+            evict(CACHE_BY_EMAIL, email);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    private void evict(String cacheName, String key) {
+        if (key == null || key.isBlank()) return;
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
 }
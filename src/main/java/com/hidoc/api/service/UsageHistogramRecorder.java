@@ -0,0 +1,131 @@
+package com.hidoc.api.service;
+
+import com.hidoc.api.repository.AnalyticsHistogramRepository;
+import jakarta.annotation.PreDestroy;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+
+/**
+ * Records AI call latency and token usage into HdrHistograms per provider, model and tool.
+ *
+ * Recording is lock-free (one {@link Recorder} per series). A scheduled flush drains the recorders into a
+ * per-hour histogram and upserts it into analytics_histograms; samples drained right after the hour
+ * changes are still attributed to the previous hour.
+ */
+@Component
+public class UsageHistogramRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(UsageHistogramRecorder.class);
+
+    public static final String LATENCY_MS = "latency_ms";
+    public static final String TOKENS = "tokens";
+
+    private static final long MAX_LATENCY_MS = Duration.ofMinutes(10).toMillis();
+    private static final long MAX_TOKENS = 1_000_000;
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final AnalyticsHistogramRepository repository;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<Series, SeriesHistogram> series = new ConcurrentHashMap<>();
+
+    public UsageHistogramRecorder(AnalyticsHistogramRepository repository) {
+        this.repository = repository;
+    }
+
+    public void recordLatency(String provider, String model, String tool, long millis) {
+        record(new Series(LATENCY_MS, provider, model, tool), millis);
+    }
+
+    public void recordTokens(String provider, String model, String tool, long tokens) {
+        record(new Series(TOKENS, provider, model, tool), tokens);
+    }
+
+    private void record(Series key, long value) {
+        SeriesHistogram s = series.computeIfAbsent(key, k -> new SeriesHistogram(highestTrackable(k.metricType())));
+        s.recorder.recordValue(Math.max(0, Math.min(value, s.highest)));
+    }
+
+    @Scheduled(initialDelayString = "${analytics.histograms.flush-interval-ms:60000}",
+            fixedDelayString = "${analytics.histograms.flush-interval-ms:60000}")
+    public synchronized void flush() {
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        for (Map.Entry<Series, SeriesHistogram> e : series.entrySet()) {
+            Series key = e.getKey();
+            SeriesHistogram s = e.getValue();
+            if (s.hourStart == null) s.hourStart = currentHour;
+            Histogram interval = s.recorder.getIntervalHistogram(s.interval);
+            s.interval = interval;
+            if (interval.getTotalCount() > 0) {
+                s.hour.add(interval);
+                try {
+                    repository.upsert(key.metricType(), key.provider(), key.model(), key.tool(), instanceId,
+                            s.hourStart, s.hour.getTotalCount(), encode(s.hour));
+                } catch (RuntimeException ex) {
+                    log.warn("Failed to persist {} histogram for {}/{}/{}: {}", key.metricType(), key.provider(),
+                            key.model(), key.tool(), ex.getMessage());
+                }
+            }
+            if (!s.hourStart.equals(currentHour)) {
+                s.hour.reset();
+                s.hourStart = currentHour;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    static byte[] encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    static Histogram decode(byte[] bytes) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt histogram", e);
+        }
+    }
+
+    static long highestTrackable(String metricType) {
+        return TOKENS.equals(metricType) ? MAX_TOKENS : MAX_LATENCY_MS;
+    }
+
+    static int significantDigits() {
+        return SIGNIFICANT_DIGITS;
+    }
+
+    private record Series(String metricType, String provider, String model, String tool) {}
+
+    private static final class SeriesHistogram {
+        final long highest;
+        final Recorder recorder;
+        final Histogram hour;
+        Histogram interval;
+        LocalDateTime hourStart;
+
+        SeriesHistogram(long highest) {
+            this.highest = highest;
+            this.recorder = new Recorder(highest, SIGNIFICANT_DIGITS);
+            this.hour = new Histogram(highest, SIGNIFICANT_DIGITS);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.hidoc.api.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cooperative cancellation signal for a call tree. Children are cancelled with their parent, but not the
+ * other way round, so a nested call can be abandoned on its own. Callbacks run on the cancelling thread.
+ */
+public final class CancellationToken {
+
+    private final List<Runnable> callbacks = new ArrayList<>();
+    private volatile String reason;
+    private Runnable detach = () -> {};
+
+    public CancellationToken child() {
+        CancellationToken child = new CancellationToken();
+        child.detach = onCancel(() -> child.cancel(reason));
+        return child;
+    }
+
+    /** Cancels this token and its children; returns false when it was already cancelled. */
+    public boolean cancel(String why) {
+        List<Runnable> toRun;
+        synchronized (callbacks) {
+            if (reason != null) return false;
+            reason = why == null ? "Cancelled" : why;
+            toRun = new ArrayList<>(callbacks);
+            callbacks.clear();
+        }
+        for (Runnable r : toRun) {
+            try {
+                r.run();
+            } catch (RuntimeException ignored) {
+                // one failing callback must not keep the others from running
+            }
+        }
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return reason != null;
+    }
+
+    public String reason() {
+        return reason;
+    }
+
+    public void throwIfCancelled() {
+        String r = reason;
+        if (r != null) throw new CancellationException(r);
+    }
+
+    /**
+     * Runs {@code callback} on cancellation, immediately if already cancelled. The returned handle
+     * unregisters it, which callers should do once the guarded work is finished.
+     */
+    public Runnable onCancel(Runnable callback) {
+        synchronized (callbacks) {
+            if (reason == null) {
+                callbacks.add(callback);
+                return () -> {
+                    synchronized (callbacks) {
+                        callbacks.remove(callback);
+                    }
+                };
+            }
+        }
+        callback.run();
+        return () -> {};
+    }
+
+    /** Stops following the parent; call when the work this child token guards has finished. */
+    public void detach() {
+        detach.run();
+    }
+}
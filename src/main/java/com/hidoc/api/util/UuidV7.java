@@ -0,0 +1,50 @@
+package com.hidoc.api.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Time-ordered UUIDs (RFC 9562 version 7): 48 bits of Unix epoch milliseconds followed by random bits.
+ * New keys land at the right-hand edge of a B-tree index instead of at random pages.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private UuidV7() {}
+
+    public static UUID generate() {
+        byte[] random = new byte[10];
+        RANDOM.nextBytes(random);
+        return build(System.currentTimeMillis(), random);
+    }
+
+    /**
+     * Deterministic variant: the random bits are taken from a SHA-256 of {@code content}, so the same
+     * content at the same time always yields the same id.
+     */
+    public static UUID fromContent(long epochMillis, String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return build(epochMillis, digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static UUID build(long epochMillis, byte[] r) {
+        long msb = (epochMillis & 0xFFFF_FFFF_FFFFL) << 16
+                | 0x7000L                          // version 7
+                | (r[0] & 0x0FL) << 8
+                | (r[1] & 0xFFL);
+        long lsb = 0x8000_0000_0000_0000L          // RFC 4122 variant
+                | (r[2] & 0x3FL) << 56;
+        for (int i = 3; i < 10; i++) {
+            lsb |= (r[i] & 0xFFL) << (8 * (9 - i));
+        }
+        return new UUID(msb, lsb);
+    }
+}
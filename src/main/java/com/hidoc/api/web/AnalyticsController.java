@@ -1,8 +1,12 @@
 package com.hidoc.api.web;
 
+import com.hidoc.api.admission.AdmissionController;
+import com.hidoc.api.admission.RequestPriority;
 import com.hidoc.api.service.AnalyticsService;
 import com.hidoc.api.service.AnalyticsService.AnalyticsSummaryReport;
+import com.hidoc.api.service.AnalyticsService.PercentileReport;
 import com.hidoc.api.service.AnalyticsService.TrendPoint;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,15 +16,19 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/analytics")
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final AdmissionController admission;
 
-    public AnalyticsController(AnalyticsService analyticsService) {
+    public AnalyticsController(AnalyticsService analyticsService,
+                               @Qualifier("analyticsAdmission") AdmissionController admission) {
         this.analyticsService = analyticsService;
+        this.admission = admission;
     }
 
     @GetMapping("/summary")
@@ -29,7 +37,7 @@ public class AnalyticsController {
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
             @RequestParam(value = "to", required = false)
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
-        AnalyticsSummaryReport report = analyticsService.getSummary(from, to);
+        AnalyticsSummaryReport report = asBatch(() -> analyticsService.getSummary(from, to));
         return ResponseEntity.ok(report);
     }
 
@@ -40,7 +48,32 @@ public class AnalyticsController {
             @RequestParam(value = "to", required = false)
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
             @RequestParam(value = "provider", required = false) String provider) {
-        List<TrendPoint> points = analyticsService.getDailyTrends(from, to, provider);
+        List<TrendPoint> points = asBatch(() -> analyticsService.getDailyTrends(from, to, provider));
         return ResponseEntity.ok(points);
     }
+
+    @GetMapping("/percentiles")
+    public ResponseEntity<List<PercentileReport>> getPercentiles(
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "metric", defaultValue = "latency") String metric,
+            @RequestParam(value = "groupBy", defaultValue = "provider") String groupBy,
+            @RequestParam(value = "provider", required = false) String provider,
+            @RequestParam(value = "model", required = false) String model,
+            @RequestParam(value = "tool", required = false) String tool) {
+        List<PercentileReport> report = asBatch(() -> analyticsService.getPercentiles(from, to, metric, groupBy, provider, model, tool));
+        return ResponseEntity.ok(report);
+    }
+
+    // Analytics queries run as batch work on the analytics gate; past its queue they are shed with 429
+    private <T> T asBatch(Supplier<T> query) {
+        Runnable release = admission.enter(RequestPriority.BATCH, null);
+        try {
+            return query.get();
+        } finally {
+            release.run();
+        }
+    }
 }
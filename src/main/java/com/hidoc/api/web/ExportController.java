@@ -0,0 +1,109 @@
+package com.hidoc.api.web;
+
+import com.hidoc.api.security.UserInfo;
+import com.hidoc.api.service.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bulk exports written straight to the response body. Responses are written synchronously on the servlet
+ * request thread, so long exports are not subject to the async request timeout but do hold that thread
+ * for the whole export.
+ */
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/usage")
+    public void exportUsage(@RequestParam(value = "from", required = false)
+                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                            @RequestParam(value = "to", required = false)
+                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                            @RequestParam(value = "format", required = false) String format,
+                            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                            HttpServletResponse response) throws IOException {
+        // Only the caller's own usage rows
+        String userId = extractUserId();
+        String email = extractEmail();
+        ExportService.Format f = ExportService.Format.parse(format);
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        LocalDateTime start = from == null ? end.minusDays(30) : from;
+        try (OutputStream out = open(response, f, "usage", gzip)) {
+            exportService.exportUsage(userId, email, start, end, f, out);
+        }
+    }
+
+    @GetMapping("/health-data")
+    public void exportHealthData(@RequestParam(value = "type", required = false) String type,
+                                 @RequestParam(value = "from", required = false)
+                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                 @RequestParam(value = "to", required = false)
+                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                 @RequestParam(value = "format", required = false) String format,
+                                 @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                                 HttpServletResponse response) throws IOException {
+        String userId = extractUserId();
+        ExportService.Format f = ExportService.Format.parse(format);
+        LocalDateTime start = from == null ? LocalDateTime.of(1970, 1, 1, 0, 0) : from;
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        try (OutputStream out = open(response, f, "health-data", gzip)) {
+            exportService.exportHealthData(userId, start, end, type, f, out);
+        }
+    }
+
+    private static OutputStream open(HttpServletResponse response, ExportService.Format format, String name,
+                                     boolean gzip) throws IOException {
+        response.setContentType(format.contentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + "." + format.extension() + "\"");
+        if (!gzip) {
+            return response.getOutputStream();
+        }
+        // Compressed on the fly and sent with Content-Encoding: gzip; clients see the plain file after decoding
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return new GZIPOutputStream(response.getOutputStream(), 64 * 1024);
+    }
+
+    private String extractUserId() {
+        var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth.getPrincipal() == null) {
+            throw new IllegalArgumentException("Authenticated user is required");
+        }
+        Object principal = auth.getPrincipal();
+        if (principal instanceof UserInfo u) {
+            return u.getUserId();
+        }
+        if (principal instanceof org.springframework.security.core.userdetails.UserDetails ud) {
+            return ud.getUsername();
+        }
+        if (principal instanceof String s && !s.isBlank()) {
+            return s;
+        }
+        throw new IllegalArgumentException("Invalid authentication principal");
+    }
+
+    private String extractEmail() {
+        var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof UserInfo u && u.getEmail() != null && !u.getEmail().isBlank()) {
+            return u.getEmail();
+        }
+        return null;
+    }
+}
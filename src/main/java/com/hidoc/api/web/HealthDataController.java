@@ -1,9 +1,16 @@
 package com.hidoc.api.web;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.hidoc.api.domain.HealthDataEntry;
 import com.hidoc.api.security.UserInfo;
+import com.hidoc.api.service.HealthDataIngestService;
 import com.hidoc.api.service.HealthDataService;
 import com.hidoc.api.web.dto.HealthMessageRequest;
+import com.hidoc.api.web.dto.HealthReading;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -12,6 +19,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -20,10 +29,17 @@ import java.util.List;
 @Validated
 public class HealthDataController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final HealthDataService healthDataService;
+    private final HealthDataIngestService ingestService;
+    private final ObjectMapper objectMapper;
 
-    public HealthDataController(HealthDataService healthDataService) {
+    public HealthDataController(HealthDataService healthDataService, HealthDataIngestService ingestService,
+                                ObjectMapper objectMapper) {
         this.healthDataService = healthDataService;
+        this.ingestService = ingestService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping(value = "/process", produces = org.springframework.http.MediaType.APPLICATION_JSON_VALUE)
@@ -33,15 +49,67 @@ public class HealthDataController {
         return new ResponseEntity<>(entry, request.isPersist() ? HttpStatus.CREATED : HttpStatus.OK);
     }
 
+    /**
+     * Bulk upload of readings as a JSON array or as NDJSON. The body is parsed incrementally, so large
+     * uploads are never held in memory as a whole.
+     */
+    @PostMapping(value = "/entries/bulk", consumes = {org.springframework.http.MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"},
+            produces = org.springframework.http.MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<HealthDataIngestService.IngestResult> bulkIngest(HttpServletRequest request) throws IOException {
+        String userId = extractUserId();
+        try (MappingIterator<HealthReading> readings = objectMapper.readerFor(HealthReading.class)
+                .readValues(request.getInputStream())) {
+            HealthDataIngestService.IngestResult result = ingestService.ingest(userId, readings);
+            return ResponseEntity.ok(result);
+        } catch (com.fasterxml.jackson.databind.RuntimeJsonMappingException ex) {
+            // Chunks before the malformed row are already stored; re-sending the upload is safe
+            String reason = ex.getCause() instanceof com.fasterxml.jackson.databind.JsonMappingException jme
+                    ? jme.getOriginalMessage() : ex.getMessage();
+            throw new IllegalArgumentException("Malformed reading: " + reason);
+        }
+    }
+
     @GetMapping(value = "/history", produces = org.springframework.http.MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<List<HealthDataEntry>> history(@RequestParam(name = "type", required = false) String type,
                                                          @RequestParam(name = "from", required = false)
                                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
                                                          @RequestParam(name = "to", required = false)
-                                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+                                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                         @RequestParam(name = "cursor", required = false) String cursor,
+                                                         @RequestParam(name = "limit", required = false) Integer limit) {
         String userId = extractUserId();
-        List<HealthDataEntry> entries = healthDataService.getHistory(userId, from, to, type);
-        return ResponseEntity.ok(entries);
+        HealthDataService.HistoryPage page = healthDataService.getHistoryPage(userId, from, to, type, cursor, limit);
+        // The body stays a plain array; the cursor for the next page travels in a header
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            ok.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return ok.body(page.entries());
+    }
+
+    @GetMapping(value = "/history/stream", produces = "application/x-ndjson")
+    public void streamHistory(@RequestParam(name = "type", required = false) String type,
+                              @RequestParam(name = "from", required = false)
+                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                              @RequestParam(name = "to", required = false)
+                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                              HttpServletResponse response) throws IOException {
+        String userId = extractUserId();
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        try (SequenceWriter writer = objectMapper.writerFor(HealthDataEntry.class)
+                .withRootValueSeparator("\n")
+                .writeValues(response.getOutputStream())) {
+            healthDataService.streamHistory(userId, from, to, type, entry -> {
+                try {
+                    writer.write(entry);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     @GetMapping(value = "/trends", produces = org.springframework.http.MediaType.APPLICATION_JSON_VALUE)
@@ -49,9 +117,10 @@ public class HealthDataController {
                                                                                            @RequestParam(name = "from", required = false)
                                                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
                                                                                            @RequestParam(name = "to", required = false)
-                                                                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+                                                                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                                           @RequestParam(name = "bucket", required = false) String bucket) {
         String userId = extractUserId();
-        var points = healthDataService.getTrends(userId, from, to, type);
+        var points = healthDataService.getTrends(userId, from, to, type, bucket);
         return ResponseEntity.ok(points);
     }
 
@@ -1,13 +1,15 @@
 package com.hidoc.api.web.ai;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.hidoc.api.ai.model.AIResponse;
+import com.hidoc.api.exception.OverloadedException;
 import com.hidoc.api.security.UserInfo;
 import com.hidoc.api.web.dto.ChatPayload;
+import com.hidoc.mcp.core.InvalidParamsException;
 import com.hidoc.mcp.core.McpContext;
 import com.hidoc.mcp.core.ToolRegistry;
+import com.hidoc.mcp.tools.ChatReply;
+import com.hidoc.mcp.tools.RoutingTool;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +17,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
+import java.util.concurrent.CompletionException;
 
 /**
  * Unified AI chat endpoint for clients calling /api/ai/chat.
@@ -37,9 +40,11 @@ public class UnifiedAIController {
 
     @PostMapping(value = "/chat", produces = org.springframework.http.MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<AIResponse> chat(@Valid @RequestBody ChatPayload request, Authentication auth) {
+        String authenticated = null;
         String userId;
         try {
-            userId = extractUserId(auth);
+            authenticated = extractUserId(auth);
+            userId = authenticated;
         } catch (IllegalArgumentException ex) {
             userId = request.getUser_id();
         }
@@ -47,28 +52,29 @@ public class UnifiedAIController {
             throw new IllegalArgumentException("user_id is required");
         }
 
-        ObjectNode params = mapper.createObjectNode();
-        params.put("user_id", userId);
-        params.put("message", request.getMessage());
-        if (request.getConversation_history() != null) {
-            params.set("conversation_history", mapper.valueToTree(request.getConversation_history()));
-        }
-        params.put("include_rag", true);
+        RoutingTool.Params params = new RoutingTool.Params(userId, request.getMessage(),
+                request.getConversation_history() == null ? null : mapper.valueToTree(request.getConversation_history()));
 
-        McpContext ctx = new McpContext("rest:unified", Instant.now(), mapper, userId);
-        JsonNode result = toolRegistry.call("ai.route_with_master_prompt", params, ctx).join();
+        // Only an authenticated user is put on the context, so anonymous callers never get anyone's health data
+        McpContext ctx = new McpContext("rest:unified", Instant.now(), mapper, authenticated);
+        ChatReply reply;
+        try {
+            reply = toolRegistry.invoke("ai.route_with_master_prompt", params, ChatReply.class, ctx).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof InvalidParamsException invalid) throw invalid;
+            if (ex.getCause() instanceof OverloadedException overloaded) throw overloaded;
+            throw ex;
+        }
 
-        if (result != null && result.has("error")) {
-            throw new IllegalArgumentException(result.path("error").asText("Unknown MCP error"));
+        if (reply != null && reply.error() != null) {
+            throw new IllegalArgumentException(reply.error());
         }
 
         AIResponse out = new AIResponse();
-        out.setResponse(result == null ? "" : result.path("text").asText(""));
-        if (result != null && result.has("model")) {
-            out.setModel(result.path("model").asText(null));
-        }
-        if (result != null && result.has("tokensUsed")) {
-            out.setTokensUsed(result.path("tokensUsed").isInt() ? result.path("tokensUsed").asInt() : null);
+        out.setResponse(reply == null || reply.text() == null ? "" : reply.text());
+        if (reply != null) {
+            out.setModel(reply.model());
+            out.setTokensUsed(reply.tokensUsed());
         }
         return ResponseEntity.ok(out);
     }
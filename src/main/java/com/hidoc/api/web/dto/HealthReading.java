@@ -0,0 +1,29 @@
+package com.hidoc.api.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDateTime;
+
+// One reading in a bulk upload; validated by HealthDataIngestService so a bad row rejects only itself
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class HealthReading {
+    private String type;
+    private String category;
+    private String value;
+    private String unit;
+    private LocalDateTime timestamp;
+    private String notes;
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    public String getValue() { return value; }
+    public void setValue(String value) { this.value = value; }
+    public String getUnit() { return unit; }
+    public void setUnit(String unit) { this.unit = unit; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+}
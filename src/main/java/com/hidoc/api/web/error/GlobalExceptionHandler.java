@@ -3,10 +3,12 @@ package com.hidoc.api.web.error;
 import com.hidoc.api.exception.AIServiceUnavailableException;
 import com.hidoc.api.exception.AuthenticationException;
 import com.hidoc.api.exception.InvalidRequestException;
+import com.hidoc.api.exception.OverloadedException;
 import com.hidoc.api.exception.RateLimitExceededException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -50,6 +52,14 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(body);
     }
 
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<Object> handleOverloaded(OverloadedException ex, HttpServletRequest request) {
+        Map<String, Object> body = baseBody(HttpStatus.TOO_MANY_REQUESTS, request, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+
     @ExceptionHandler({AuthenticationException.class})
     public ResponseEntity<Object> handleAuth(AuthenticationException ex, HttpServletRequest request) {
         Map<String, Object> body = baseBody(HttpStatus.UNAUTHORIZED, request, ex.getMessage());
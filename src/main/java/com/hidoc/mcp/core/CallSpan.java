@@ -0,0 +1,58 @@
+package com.hidoc.mcp.core;
+
+import io.micrometer.observation.Observation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One tool call in a request's call tree, kept for the slow-call log. The observation is the parent of
+ * the observations of nested calls, so traces get the same parent/child structure.
+ */
+public final class CallSpan {
+    private final String tool;
+    private final long startNanos = System.nanoTime();
+    private final List<CallSpan> children = new CopyOnWriteArrayList<>();
+    private final Observation observation;
+    private volatile long durationNanos = -1;
+    private volatile String outcome;
+
+    CallSpan(String tool, Observation observation) {
+        this.tool = tool;
+        this.observation = observation;
+    }
+
+    public String getTool() { return tool; }
+    public Observation getObservation() { return observation; }
+
+    void addChild(CallSpan child) {
+        children.add(child);
+    }
+
+    void finish(String outcome) {
+        this.outcome = outcome;
+        this.durationNanos = System.nanoTime() - startNanos;
+    }
+
+    long durationMillis() {
+        long d = durationNanos;
+        return TimeUnit.NANOSECONDS.toMillis(d < 0 ? System.nanoTime() - startNanos : d);
+    }
+
+    /** Indented tree of this call and its nested calls with durations and outcomes. */
+    String render() {
+        StringBuilder sb = new StringBuilder();
+        render(sb, 0);
+        return sb.toString();
+    }
+
+    private void render(StringBuilder sb, int depth) {
+        sb.append("  ".repeat(depth + 1)).append(tool).append(' ').append(durationMillis()).append(" ms ")
+                .append(outcome == null ? "running" : outcome);
+        for (CallSpan c : children) {
+            sb.append('\n');
+            c.render(sb, depth + 1);
+        }
+    }
+}
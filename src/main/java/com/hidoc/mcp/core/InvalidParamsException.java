@@ -0,0 +1,15 @@
+package com.hidoc.mcp.core;
+
+import java.util.List;
+
+/** Tool params that do not match the tool's schema; answered with JSON-RPC -32602. */
+public class InvalidParamsException extends IllegalArgumentException {
+    private final List<String> errors;
+
+    public InvalidParamsException(String tool, List<String> errors) {
+        super("Invalid params for " + tool + ": " + String.join("; ", errors));
+        this.errors = List.copyOf(errors);
+    }
+
+    public List<String> getErrors() { return errors; }
+}
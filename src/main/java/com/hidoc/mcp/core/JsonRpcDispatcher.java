@@ -0,0 +1,197 @@
+package com.hidoc.mcp.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hidoc.api.exception.OverloadedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Transport-independent JSON-RPC 2.0 handling shared by the HTTP, streamable HTTP and WebSocket endpoints.
+ *
+ * Accepts a single request object or a batch array; the calls in a batch are dispatched together and
+ * answered in request order. Requests without an id are notifications and get no response, and the
+ * returned future completes with null when there is nothing to send back. With a session, calls are
+ * tracked so that notifications/cancelled can cancel them; a cancelled call gets no response.
+ *
+ * Besides calling a tool by using its name as the method, the MCP lifecycle and listing methods are
+ * answered from {@link McpCapabilities}, and tools/call wraps a tool's result in MCP content.
+ */
+@Component
+public class JsonRpcDispatcher {
+
+    public static final String CANCELLED = "notifications/cancelled";
+    public static final String INITIALIZED = "notifications/initialized";
+    /** Server error code for calls shed by admission control; {@code error.data.retryAfterSeconds} says when to retry. */
+    public static final int OVERLOADED = -32001;
+
+    private final ObjectMapper mapper;
+    private final ToolRegistry registry;
+    private final McpCapabilities capabilities;
+
+    @Value("${mcp.jsonrpc.max-batch-size:50}")
+    private int maxBatchSize = 50;
+
+    public JsonRpcDispatcher(ObjectMapper mapper, ToolRegistry registry, McpCapabilities capabilities) {
+        this.mapper = mapper;
+        this.registry = registry;
+        this.capabilities = capabilities;
+    }
+
+    public CompletableFuture<JsonNode> handle(JsonNode request, McpContext ctx, McpSession session) {
+        if (request instanceof ObjectNode single) {
+            return dispatch(single, ctx, session).thenApply(r -> r);
+        }
+        if (!(request instanceof ArrayNode batch) || batch.isEmpty()) {
+            return CompletableFuture.completedFuture(error(NullNode.getInstance(), -32600, "Invalid Request"));
+        }
+        if (batch.size() > maxBatchSize) {
+            return CompletableFuture.completedFuture(error(NullNode.getInstance(), -32600,
+                    "Invalid Request: batch is limited to " + maxBatchSize + " calls"));
+        }
+        // Start every call before waiting on any of them
+        List<CompletableFuture<ObjectNode>> calls = new ArrayList<>(batch.size());
+        for (JsonNode entry : batch) {
+            if (entry instanceof ObjectNode call) {
+                calls.add(dispatch(call, ctx, session));
+            } else {
+                calls.add(CompletableFuture.completedFuture(
+                        error(NullNode.getInstance(), -32600, "Invalid Request: batch entries must be objects")));
+            }
+        }
+        return CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            ArrayNode out = mapper.createArrayNode();
+            for (CompletableFuture<ObjectNode> c : calls) {
+                ObjectNode r = c.join();
+                if (r != null) out.add(r);
+            }
+            return out.isEmpty() ? null : out;
+        });
+    }
+
+    /** True when {@code request} contains at least one call that will be answered. */
+    public boolean expectsResponse(JsonNode request) {
+        if (request instanceof ArrayNode batch) {
+            if (batch.isEmpty()) return true;
+            for (JsonNode entry : batch) {
+                if (!entry.isObject() || entry.hasNonNull("id")) return true;
+            }
+            return false;
+        }
+        return !request.isObject() || request.hasNonNull("id");
+    }
+
+    private CompletableFuture<ObjectNode> dispatch(ObjectNode request, McpContext ctx, McpSession session) {
+        JsonNode id = request.get("id");
+        boolean notification = id == null || id.isNull();
+        String method = request.path("method").asText(null);
+        JsonNode params = request.path("params");
+        if (method == null) {
+            return CompletableFuture.completedFuture(notification ? null
+                    : error(id, -32600, "Invalid Request: missing method"));
+        }
+        if (CANCELLED.equals(method)) {
+            if (session != null) session.cancel(params.path("requestId"));
+            return CompletableFuture.completedFuture(null);
+        }
+        if (INITIALIZED.equals(method)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<JsonNode> call;
+        try {
+            call = switch (method) {
+                case "initialize" -> CompletableFuture.completedFuture(capabilities.initialize(params));
+                case "ping" -> CompletableFuture.completedFuture(mapper.createObjectNode());
+                case "tools/list" -> CompletableFuture.completedFuture(capabilities.tools());
+                case "prompts/list" -> CompletableFuture.completedFuture(capabilities.prompts());
+                case "resources/list" -> CompletableFuture.completedFuture(capabilities.resources());
+                case "tools/call" -> callTool(params, ctx);
+                default -> registry.call(method, params, ctx);
+            };
+        } catch (RuntimeException ex) {
+            call = CompletableFuture.failedFuture(ex);
+        }
+        if (session != null && !notification) {
+            session.track(id, call);
+        }
+        CompletableFuture<JsonNode> tracked = call;
+        return call.handle((result, ex) -> {
+            if (session != null && !notification) session.untrack(id, tracked);
+            if (notification || tracked.isCancelled()) return null;
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof InvalidParamsException invalid) {
+                ObjectNode resp = error(id, -32602, "Invalid params");
+                ArrayNode details = ((ObjectNode) resp.get("error")).putArray("data");
+                invalid.getErrors().forEach(details::add);
+                return resp;
+            }
+            if (cause instanceof OverloadedException overloaded) {
+                ObjectNode resp = error(id, OVERLOADED, overloaded.getMessage());
+                ((ObjectNode) resp.get("error")).putObject("data").put("retryAfterSeconds", overloaded.getRetryAfterSeconds());
+                return resp;
+            }
+            if (cause != null) return error(id, -32000, cause.getMessage());
+            return success(id, result);
+        });
+    }
+
+    private CompletableFuture<JsonNode> callTool(JsonNode params, McpContext ctx) {
+        String name = params.path("name").asText(null);
+        if (name == null || !registry.list().containsKey(name)) {
+            return CompletableFuture.failedFuture(new InvalidParamsException("tools/call",
+                    List.of(name == null ? "$.name: is required" : "Unknown tool: " + name)));
+        }
+        JsonNode arguments = params.path("arguments");
+        // Tools read the progress token and timeout from their own params
+        if (params.has("_meta")) {
+            ObjectNode args = arguments.isObject() ? ((ObjectNode) arguments).deepCopy() : mapper.createObjectNode();
+            args.set("_meta", params.get("_meta"));
+            arguments = args;
+        }
+        return registry.call(name, arguments, ctx).thenApply(result -> {
+            ObjectNode out = mapper.createObjectNode();
+            out.putArray("content").addObject().put("type", "text").put("text", result == null ? "" : result.toString());
+            if (result != null && result.isObject()) out.set("structuredContent", result);
+            out.put("isError", result != null && result.has("error"));
+            return out;
+        });
+    }
+
+    /**
+     * Retry-After for a response that is a single call shed by admission control, so HTTP transports can
+     * answer 429; empty for anything else, including batches.
+     */
+    public static OptionalLong retryAfterSeconds(JsonNode response) {
+        JsonNode error = response == null ? null : response.get("error");
+        if (error == null || error.path("code").asInt() != OVERLOADED) return OptionalLong.empty();
+        return OptionalLong.of(error.path("data").path("retryAfterSeconds").asLong(1));
+    }
+
+    private ObjectNode success(JsonNode id, JsonNode result) {
+        ObjectNode resp = mapper.createObjectNode();
+        resp.put("jsonrpc", "2.0");
+        resp.set("id", id);
+        resp.set("result", result == null ? mapper.createObjectNode() : result);
+        return resp;
+    }
+
+    public ObjectNode error(JsonNode id, int code, String message) {
+        ObjectNode resp = mapper.createObjectNode();
+        resp.put("jsonrpc", "2.0");
+        resp.set("id", id);
+        ObjectNode err = mapper.createObjectNode();
+        err.put("code", code);
+        err.put("message", message);
+        resp.set("error", err);
+        return resp;
+    }
+}
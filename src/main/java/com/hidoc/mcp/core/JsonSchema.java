@@ -0,0 +1,212 @@
+package com.hidoc.mcp.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * A tool's input schema compiled into a list of checks, so validating a call does no schema interpretation.
+ * Covers the parts of JSON Schema the tools use: type, enum, const, properties, required,
+ * additionalProperties, items, min/maxItems, min/maxLength, pattern and the numeric bounds. Other keywords
+ * are ignored, as a validator that does not know a keyword would.
+ */
+public final class JsonSchema {
+
+    /** Validation stops collecting after this many errors. */
+    static final int MAX_ERRORS = 10;
+
+    private interface Check {
+        void apply(JsonNode value, String path, List<String> errors);
+    }
+
+    private final List<Check> checks;
+
+    private JsonSchema(List<Check> checks) {
+        this.checks = checks;
+    }
+
+    public static JsonSchema compile(JsonNode schema) {
+        List<Check> checks = new ArrayList<>();
+        if (schema == null || !schema.isObject()) {
+            return new JsonSchema(checks);
+        }
+        JsonNode type = schema.get("type");
+        if (type != null) {
+            Set<String> types = new HashSet<>();
+            if (type.isArray()) type.forEach(t -> types.add(t.asText()));
+            else types.add(type.asText());
+            String expected = String.join(" or ", types);
+            checks.add((v, path, errors) -> {
+                for (String t : types) {
+                    if (hasType(v, t)) return;
+                }
+                errors.add(path + ": expected " + expected);
+            });
+        }
+        JsonNode enumNode = schema.get("enum");
+        if (enumNode != null && enumNode.isArray()) {
+            Set<JsonNode> allowed = new HashSet<>();
+            enumNode.forEach(allowed::add);
+            checks.add((v, path, errors) -> {
+                if (!allowed.contains(v)) errors.add(path + ": must be one of " + enumNode);
+            });
+        }
+        JsonNode constNode = schema.get("const");
+        if (constNode != null) {
+            checks.add((v, path, errors) -> {
+                if (!constNode.equals(v)) errors.add(path + ": must be " + constNode);
+            });
+        }
+        objectChecks(schema, checks);
+        arrayChecks(schema, checks);
+        stringChecks(schema, checks);
+        numberChecks(schema, checks);
+        return new JsonSchema(checks);
+    }
+
+    /** Error messages for {@code value}, empty when it is valid. */
+    public List<String> validate(JsonNode value) {
+        List<String> errors = new ArrayList<>(0);
+        validate(value, "$", errors);
+        return errors;
+    }
+
+    private void validate(JsonNode value, String path, List<String> errors) {
+        for (Check c : checks) {
+            if (errors.size() >= MAX_ERRORS) return;
+            c.apply(value, path, errors);
+        }
+    }
+
+    private static void objectChecks(JsonNode schema, List<Check> checks) {
+        Map<String, JsonSchema> properties = new LinkedHashMap<>();
+        JsonNode props = schema.get("properties");
+        if (props != null && props.isObject()) {
+            props.fields().forEachRemaining(e -> properties.put(e.getKey(), compile(e.getValue())));
+        }
+        if (!properties.isEmpty()) {
+            checks.add((v, path, errors) -> {
+                if (!v.isObject()) return;
+                properties.forEach((name, s) -> {
+                    JsonNode child = v.get(name);
+                    if (child != null) s.validate(child, path + "." + name, errors);
+                });
+            });
+        }
+        JsonNode required = schema.get("required");
+        if (required != null && required.isArray() && !required.isEmpty()) {
+            List<String> names = new ArrayList<>();
+            required.forEach(r -> names.add(r.asText()));
+            checks.add((v, path, errors) -> {
+                if (!v.isObject()) return;
+                for (String name : names) {
+                    if (!v.has(name)) errors.add(path + "." + name + ": is required");
+                }
+            });
+        }
+        JsonNode additional = schema.get("additionalProperties");
+        if (additional != null && !(additional.isBoolean() && additional.asBoolean())) {
+            JsonSchema extra = additional.isObject() ? compile(additional) : null;
+            checks.add((v, path, errors) -> {
+                if (!v.isObject()) return;
+                v.fields().forEachRemaining(e -> {
+                    // _meta carries protocol fields (progress token, timeout) and is never part of a tool's schema
+                    if (properties.containsKey(e.getKey()) || "_meta".equals(e.getKey())) return;
+                    if (extra == null) errors.add(path + "." + e.getKey() + ": is not allowed");
+                    else extra.validate(e.getValue(), path + "." + e.getKey(), errors);
+                });
+            });
+        }
+    }
+
+    private static void arrayChecks(JsonNode schema, List<Check> checks) {
+        JsonNode items = schema.get("items");
+        if (items != null && items.isObject()) {
+            JsonSchema itemSchema = compile(items);
+            checks.add((v, path, errors) -> {
+                if (!v.isArray()) return;
+                for (int i = 0; i < v.size() && errors.size() < MAX_ERRORS; i++) {
+                    itemSchema.validate(v.get(i), path + "[" + i + "]", errors);
+                }
+            });
+        }
+        JsonNode minItems = schema.get("minItems");
+        if (minItems != null && minItems.canConvertToInt()) {
+            int min = minItems.asInt();
+            checks.add((v, path, errors) -> {
+                if (v.isArray() && v.size() < min) errors.add(path + ": needs at least " + min + " items");
+            });
+        }
+        JsonNode maxItems = schema.get("maxItems");
+        if (maxItems != null && maxItems.canConvertToInt()) {
+            int max = maxItems.asInt();
+            checks.add((v, path, errors) -> {
+                if (v.isArray() && v.size() > max) errors.add(path + ": allows at most " + max + " items");
+            });
+        }
+    }
+
+    private static void stringChecks(JsonNode schema, List<Check> checks) {
+        JsonNode minLength = schema.get("minLength");
+        if (minLength != null && minLength.canConvertToInt()) {
+            int min = minLength.asInt();
+            checks.add((v, path, errors) -> {
+                if (v.isTextual() && length(v) < min) errors.add(path + ": must be at least " + min + " characters");
+            });
+        }
+        JsonNode maxLength = schema.get("maxLength");
+        if (maxLength != null && maxLength.canConvertToInt()) {
+            int max = maxLength.asInt();
+            checks.add((v, path, errors) -> {
+                if (v.isTextual() && length(v) > max) errors.add(path + ": must be at most " + max + " characters");
+            });
+        }
+        JsonNode pattern = schema.get("pattern");
+        if (pattern != null && pattern.isTextual()) {
+            Pattern p = Pattern.compile(pattern.asText());
+            checks.add((v, path, errors) -> {
+                if (v.isTextual() && !p.matcher(v.asText()).find()) errors.add(path + ": must match " + p.pattern());
+            });
+        }
+    }
+
+    private static void numberChecks(JsonNode schema, List<Check> checks) {
+        bound(schema, "minimum", checks, (x, b) -> x >= b, "must be >= ");
+        bound(schema, "maximum", checks, (x, b) -> x <= b, "must be <= ");
+        bound(schema, "exclusiveMinimum", checks, (x, b) -> x > b, "must be > ");
+        bound(schema, "exclusiveMaximum", checks, (x, b) -> x < b, "must be < ");
+    }
+
+    private interface Bound {
+        boolean ok(double value, double bound);
+    }
+
+    private static void bound(JsonNode schema, String keyword, List<Check> checks, Bound bound, String message) {
+        JsonNode b = schema.get(keyword);
+        if (b == null || !b.isNumber()) return;
+        double limit = b.asDouble();
+        checks.add((v, path, errors) -> {
+            if (v.isNumber() && !bound.ok(v.asDouble(), limit)) errors.add(path + ": " + message + b);
+        });
+    }
+
+    private static boolean hasType(JsonNode v, String type) {
+        return switch (type) {
+            case "object" -> v.isObject();
+            case "array" -> v.isArray();
+            case "string" -> v.isTextual();
+            case "boolean" -> v.isBoolean();
+            case "null" -> v.isNull();
+            case "number" -> v.isNumber();
+            // JSON Schema counts 2.0 as an integer
+            case "integer" -> v.isIntegralNumber() || (v.isNumber() && v.asDouble() == Math.rint(v.asDouble()));
+            default -> true;
+        };
+    }
+
+    private static int length(JsonNode v) {
+        String s = v.asText();
+        return s.codePointCount(0, s.length());
+    }
+}
@@ -0,0 +1,106 @@
+package com.hidoc.mcp.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hidoc.mcp.util.PromptLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * What this server offers, built once at startup: the results of initialize, tools/list, prompts/list and
+ * resources/list, and the same data as one serialized document with an ETag for conditional GETs. Tools and
+ * prompts are fixed for the lifetime of the process, so nothing here is rebuilt per request. The nodes are
+ * shared between responses and must not be modified.
+ */
+@Component
+public class McpCapabilities {
+
+    public static final String PROTOCOL_VERSION = "2025-03-26";
+    // Versions whose messages this server can answer; initialize echoes the client's when it is one of them
+    private static final List<String> SUPPORTED_VERSIONS = List.of("2024-11-05", PROTOCOL_VERSION);
+
+    private final ObjectMapper mapper;
+    private final ObjectNode serverInfo;
+    private final ObjectNode capabilities;
+    private final ObjectNode tools;
+    private final ObjectNode prompts;
+    private final ObjectNode resources;
+    private final byte[] document;
+    private final String etag;
+
+    public McpCapabilities(ObjectMapper mapper, ToolRegistry registry, PromptLoader prompts,
+                           @Value("${spring.application.name:hi-doc-api-service}") String serverName) throws JsonProcessingException {
+        this.mapper = mapper;
+        this.serverInfo = mapper.createObjectNode().put("name", serverName).put("version", "1.0");
+
+        this.capabilities = mapper.createObjectNode();
+        capabilities.putObject("tools").put("listChanged", false);
+        capabilities.putObject("prompts").put("listChanged", false);
+        capabilities.putObject("resources").put("listChanged", false).put("subscribe", false);
+
+        this.tools = mapper.createObjectNode();
+        ArrayNode toolList = tools.putArray("tools");
+        registry.schemas().forEach((name, schema) -> {
+            ObjectNode t = toolList.addObject();
+            t.put("name", name);
+            t.set("inputSchema", schema);
+        });
+
+        this.prompts = mapper.createObjectNode();
+        ArrayNode promptList = this.prompts.putArray("prompts");
+        // Named by file, as prompts.get expects
+        for (String name : prompts.list()) {
+            promptList.addObject().put("name", name);
+        }
+
+        this.resources = mapper.createObjectNode();
+        resources.putArray("resources");
+
+        ObjectNode doc = mapper.createObjectNode();
+        doc.put("protocolVersion", PROTOCOL_VERSION);
+        doc.set("serverInfo", serverInfo);
+        doc.set("capabilities", capabilities);
+        doc.set("tools", toolList);
+        doc.set("prompts", promptList);
+        doc.set("resources", resources.get("resources"));
+        this.document = mapper.writeValueAsBytes(doc);
+        this.etag = "\"" + digest(document) + "\"";
+    }
+
+    /** Result of initialize, agreeing on the client's protocol version when it is supported. */
+    public ObjectNode initialize(JsonNode params) {
+        String requested = params == null ? null : params.path("protocolVersion").asText(null);
+        ObjectNode result = mapper.createObjectNode();
+        result.put("protocolVersion", requested != null && SUPPORTED_VERSIONS.contains(requested) ? requested : PROTOCOL_VERSION);
+        result.set("capabilities", capabilities);
+        result.set("serverInfo", serverInfo);
+        return result;
+    }
+
+    public ObjectNode tools() { return tools; }
+    public ObjectNode prompts() { return prompts; }
+    public ObjectNode resources() { return resources; }
+
+    /** The whole capability document, serialized once. */
+    public byte[] document() { return document; }
+
+    /** Strong ETag of {@link #document()}, quoted. */
+    public String etag() { return etag; }
+
+    private static String digest(byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
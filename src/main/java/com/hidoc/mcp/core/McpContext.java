@@ -1,26 +1,168 @@
 package com.hidoc.mcp.core;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.http.server.ServletServerHttpRequest;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hidoc.api.admission.RequestPriority;
+import com.hidoc.api.util.CancellationToken;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class McpContext {
     private final String connectionId;
     private final Instant requestTime;
     private final ObjectMapper mapper;
     private final String userId;
+    // Pushes server-initiated JSON-RPC messages to the client; a no-op on one-shot transports
+    private final Consumer<ObjectNode> notifier;
+    private final Instant deadline;
+    private final CancellationToken cancellation;
+    // The tool call this context belongs to; null outside of a tool call
+    private final CallSpan span;
+    // Results of @Memoized tools, shared by every call under one top-level call
+    private final Map<Object, CompletableFuture<?>> memo;
+    // The top-level call's context, which memoized calls run under; null when this is that context
+    private final McpContext memoOwner;
+    private final RequestPriority priority;
 
     public McpContext(String connectionId, Instant requestTime, ObjectMapper mapper, String userId) {
+        this(connectionId, requestTime, mapper, userId, null);
+    }
+
+    public McpContext(String connectionId, Instant requestTime, ObjectMapper mapper, String userId,
+                      Consumer<ObjectNode> notifier) {
+        this(connectionId, requestTime, mapper, userId, notifier, null, new CancellationToken(), null, null, null,
+                RequestPriority.INTERACTIVE);
+    }
+
+    private McpContext(String connectionId, Instant requestTime, ObjectMapper mapper, String userId,
+                       Consumer<ObjectNode> notifier, Instant deadline, CancellationToken cancellation,
+                       CallSpan span, Map<Object, CompletableFuture<?>> memo, McpContext memoOwner,
+                       RequestPriority priority) {
         this.connectionId = connectionId;
         this.requestTime = requestTime;
         this.mapper = mapper;
         this.userId = userId;
+        this.notifier = notifier;
+        this.deadline = deadline;
+        this.cancellation = cancellation;
+        this.span = span;
+        this.memo = memo;
+        this.memoOwner = memoOwner;
+        this.priority = priority;
     }
 
     public String getConnectionId() { return connectionId; }
     public Instant getRequestTime() { return requestTime; }
     public ObjectMapper getMapper() { return mapper; }
     public Optional<String> getUserId() { return Optional.ofNullable(userId); }
+    public Optional<Instant> getDeadline() { return Optional.ofNullable(deadline); }
+    public CancellationToken getCancellation() { return cancellation; }
+    public Optional<CallSpan> getSpan() { return Optional.ofNullable(span); }
+    public RequestPriority getPriority() { return priority; }
+
+    /** Time left before the deadline, or empty when there is none. Never negative. */
+    public Optional<Duration> remaining() {
+        if (deadline == null) return Optional.empty();
+        Duration left = Duration.between(Instant.now(), deadline);
+        return Optional.of(left.isNegative() ? Duration.ZERO : left);
+    }
+
+    public boolean isCancelled() {
+        return cancellation.isCancelled() || (deadline != null && !Instant.now().isBefore(deadline));
+    }
+
+    /** Throws CancellationException if the call was cancelled or its deadline has passed. */
+    public void throwIfCancelled() {
+        cancellation.throwIfCancelled();
+        if (deadline != null && !Instant.now().isBefore(deadline)) {
+            throw new CancellationException("Deadline exceeded");
+        }
+    }
+
+    /** Same connection and user, with messages pushed to {@code notifier} (e.g. one SSE response stream). */
+    public McpContext withNotifier(Consumer<ObjectNode> notifier) {
+        return new McpContext(connectionId, requestTime, mapper, userId, notifier, deadline, cancellation, span, memo, memoOwner, priority);
+    }
+
+    /** Same context, admitted under {@code priority} (interactive unless a transport or caller says otherwise). */
+    public McpContext withPriority(RequestPriority priority) {
+        return new McpContext(connectionId, requestTime, mapper, userId, notifier, deadline, cancellation, span, memo, memoOwner, priority);
+    }
+
+    /**
+     * Context for a nested call: cancelled together with this one, with a deadline no later than this
+     * context's. {@code timeout} only ever tightens the inherited deadline; {@code span} is the nested call.
+     * A top-level call starts a new memo store that its nested calls share.
+     */
+    public McpContext child(Duration timeout, CallSpan span) {
+        Instant d = deadline;
+        if (timeout != null) {
+            Instant candidate = Instant.now().plus(timeout);
+            if (d == null || candidate.isBefore(d)) d = candidate;
+        }
+        if (this.span == null) {
+            return new McpContext(connectionId, requestTime, mapper, userId, notifier, d, cancellation.child(), span,
+                    new ConcurrentHashMap<>(), null, priority);
+        }
+        return new McpContext(connectionId, requestTime, mapper, userId, notifier, d, cancellation.child(), span,
+                memo, memoOwner != null ? memoOwner : this, priority);
+    }
+
+    /**
+     * The memoized result for {@code key} in this call tree, starting {@code compute} when there is none yet.
+     * {@code compute} is given the top-level call's context to run under, so the shared result is bounded by
+     * that call's deadline and cancellation rather than by whichever caller happened to start it. A result
+     * that completes exceptionally is dropped so that a later call can try again. Outside of a tool call
+     * nothing is memoized.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> memoize(Object key, Function<McpContext, CompletableFuture<T>> compute) {
+        if (memo == null) return compute.apply(this);
+        CompletableFuture<T> started = new CompletableFuture<>();
+        CompletableFuture<T> existing = (CompletableFuture<T>) memo.putIfAbsent(key, started);
+        // Callers get copies, so one of them cancelling does not cancel the result for the others
+        if (existing != null) return existing.copy();
+        compute.apply(memoOwner != null ? memoOwner : this).whenComplete((r, ex) -> {
+            if (ex != null) {
+                memo.remove(key, started);
+                started.completeExceptionally(ex);
+            } else {
+                started.complete(r);
+            }
+        });
+        return started.copy();
+    }
+
+    public void sendNotification(String method, JsonNode params) {
+        if (notifier == null) return;
+        ObjectNode msg = mapper.createObjectNode();
+        msg.put("jsonrpc", "2.0");
+        msg.put("method", method);
+        msg.set("params", params);
+        notifier.accept(msg);
+    }
+
+    /**
+     * Sends notifications/progress when the caller asked for it by passing {@code _meta.progressToken}
+     * in the tool params.
+     */
+    public void progress(JsonNode toolParams, int progress, int total, String message) {
+        JsonNode token = toolParams == null ? null : toolParams.path("_meta").get("progressToken");
+        if (notifier == null || token == null || token.isNull()) return;
+        ObjectNode p = mapper.createObjectNode();
+        p.set("progressToken", token);
+        p.put("progress", progress);
+        p.put("total", total);
+        if (message != null) p.put("message", message);
+        sendNotification("notifications/progress", p);
+    }
 }
@@ -0,0 +1,62 @@
+package com.hidoc.mcp.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State kept for a persistent MCP connection: the context reused by every call on it and the calls still
+ * in flight, keyed by JSON-RPC id, so that notifications/cancelled can find them.
+ */
+public class McpSession {
+    private final String id;
+    private final String owner;
+    private final McpContext context;
+    private final Map<String, CompletableFuture<?>> inflight = new ConcurrentHashMap<>();
+    private volatile Instant lastSeen = Instant.now();
+
+    public McpSession(String id, String owner, McpContext context) {
+        this.id = id;
+        this.owner = owner;
+        this.context = context;
+    }
+
+    public String getId() { return id; }
+    public String getOwner() { return owner; }
+    public McpContext getContext() { return context; }
+    public Instant getLastSeen() { return lastSeen; }
+
+    public void touch() {
+        lastSeen = Instant.now();
+    }
+
+    void track(JsonNode requestId, CompletableFuture<?> call) {
+        inflight.put(key(requestId), call);
+    }
+
+    void untrack(JsonNode requestId, CompletableFuture<?> call) {
+        inflight.remove(key(requestId), call);
+    }
+
+    public boolean cancel(JsonNode requestId) {
+        CompletableFuture<?> call = inflight.remove(key(requestId));
+        return call != null && call.cancel(true);
+    }
+
+    public void cancelAll() {
+        inflight.values().forEach(f -> f.cancel(true));
+        inflight.clear();
+    }
+
+    public int inflightCount() {
+        return inflight.size();
+    }
+
+    // Ids may be numbers or strings; 1 and "1" are the same call for cancellation purposes
+    private static String key(JsonNode requestId) {
+        return requestId == null ? "" : requestId.asText();
+    }
+}
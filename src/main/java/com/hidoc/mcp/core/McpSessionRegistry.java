@@ -0,0 +1,65 @@
+package com.hidoc.mcp.core;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Sessions of the streamable HTTP transport, addressed by the Mcp-Session-Id header. Sessions that have
+ * been idle for {@code mcp.sessions.idle-timeout-ms} with nothing in flight are dropped.
+ */
+@Component
+public class McpSessionRegistry {
+
+    private final Map<String, McpSession> sessions = new ConcurrentHashMap<>();
+
+    @Value("${mcp.sessions.idle-timeout-ms:1800000}")
+    private long idleTimeoutMs = 1_800_000;
+
+    @Value("${mcp.sessions.max-sessions:10000}")
+    private int maxSessions = 10_000;
+
+    public McpSession create(String owner, Function<String, McpContext> contextFactory) {
+        if (sessions.size() >= maxSessions) {
+            throw new IllegalStateException("Too many open MCP sessions");
+        }
+        String id = UUID.randomUUID().toString();
+        McpSession session = new McpSession(id, owner, contextFactory.apply(id));
+        sessions.put(id, session);
+        return session;
+    }
+
+    /** The session with this id, provided it belongs to {@code owner}. */
+    public Optional<McpSession> find(String id, String owner) {
+        McpSession session = id == null ? null : sessions.get(id);
+        if (session == null || !Objects.equals(session.getOwner(), owner)) {
+            return Optional.empty();
+        }
+        session.touch();
+        return Optional.of(session);
+    }
+
+    public boolean close(String id, String owner) {
+        Optional<McpSession> session = find(id, owner);
+        session.ifPresent(s -> {
+            sessions.remove(s.getId());
+            s.cancelAll();
+        });
+        return session.isPresent();
+    }
+
+    @Scheduled(fixedDelayString = "${mcp.sessions.sweep-interval-ms:60000}")
+    public void expireIdle() {
+        Instant cutoff = Instant.now().minus(Duration.ofMillis(idleTimeoutMs));
+        sessions.values().removeIf(s -> s.inflightCount() == 0 && s.getLastSeen().isBefore(cutoff));
+    }
+}
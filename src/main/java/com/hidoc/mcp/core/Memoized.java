@@ -0,0 +1,20 @@
+package com.hidoc.mcp.core;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@link McpTool} whose result depends only on its params for the duration of a request. Within
+ * one top-level call and everything it calls, the registry runs such a tool at most once per distinct set
+ * of params ({@code _meta} aside) and hands every caller the same result, which callers must therefore not
+ * modify. The shared call runs directly under the top-level call, bounded by its deadline and cancellation;
+ * a caller that times out or is cancelled only stops waiting. Failed calls are not remembered.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Memoized {
+}
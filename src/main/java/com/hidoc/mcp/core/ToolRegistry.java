@@ -2,31 +2,98 @@ package com.hidoc.mcp.core;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hidoc.api.admission.AdmissionController;
+import com.hidoc.api.admission.RequestPriority;
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 
-import java.time.Instant;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Function;
 
+/**
+ * Dispatches tool calls. Every call runs in a child {@link McpContext}: it is cancelled when its caller is,
+ * and its deadline is the caller's remaining budget, tightened by {@code _meta.timeoutMs} in the params and
+ * defaulting to {@code mcp.calls.default-timeout-ms} for top-level calls. Cancelling the returned future,
+ * or reaching the deadline, cancels the call's token so nested calls and provider requests stop early.
+ *
+ * Each call of a registered tool is an observation named {@code mcp.tool.call}, tagged with the tool and its
+ * outcome (success, error, timeout, cancelled); that yields the {@code mcp.tool.call} timer and, with a tracing
+ * bridge on the classpath, a span whose parent is the calling tool's span. Top-level calls slower than
+ * {@code mcp.calls.slow-threshold-ms} are logged with their whole call tree.
+ *
+ * Schemas are read from the tools once at startup and compiled; params that do not match are rejected with
+ * {@link InvalidParamsException} before the tool runs. Tools marked {@link Memoized} run at most once per
+ * distinct params within a top-level call.
+ *
+ * Top-level calls are admitted through the {@code toolAdmission} gate under the context's priority, which
+ * {@code _meta.priority} (interactive, background or batch) can lower but never raise per call; nested calls
+ * run under their caller's admission.
+ */
 @Component
 public class ToolRegistry {
+    private static final Logger log = LoggerFactory.getLogger(ToolRegistry.class);
+
     private final Map<String, McpTool> tools = new LinkedHashMap<>();
+    private final Map<String, JsonNode> schemas = new LinkedHashMap<>();
+    private final Map<String, JsonSchema> validators = new LinkedHashMap<>();
+    private final Set<String> memoized = new HashSet<>();
     private final ObjectMapper mapper;
+    private final ObservationRegistry observations;
+    private final AdmissionController admission;
+    private final ScheduledThreadPoolExecutor deadlines = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "mcp-deadlines");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${mcp.calls.default-timeout-ms:60000}")
+    private long defaultTimeoutMs = 60_000;
+
+    @Value("${mcp.calls.slow-threshold-ms:5000}")
+    private long slowThresholdMs = 5_000;
 
-    public ToolRegistry(ObjectMapper mapper, java.util.List<McpTool> toolBeans) {
+    public ToolRegistry(ObjectMapper mapper, List<McpTool> toolBeans, ObservationRegistry observations,
+                        @Qualifier("toolAdmission") AdmissionController admission) {
         this.mapper = mapper;
+        this.observations = observations;
+        this.admission = admission;
+        this.deadlines.setRemoveOnCancelPolicy(true);
         if (toolBeans != null) {
             for (McpTool t : toolBeans) {
                 tools.put(t.name(), t);
+                JsonNode schema = t.schema();
+                schemas.put(t.name(), schema);
+                validators.put(t.name(), JsonSchema.compile(schema));
+                if (AnnotatedElementUtils.hasAnnotation(ClassUtils.getUserClass(t), Memoized.class)) {
+                    memoized.add(t.name());
+                }
             }
         }
     }
 
     public Map<String, McpTool> list() { return Collections.unmodifiableMap(tools); }
 
+    /** Input schemas by tool name, built once at startup. Shared; do not modify. */
+    public Map<String, JsonNode> schemas() { return Collections.unmodifiableMap(schemas); }
+
     public CompletableFuture<JsonNode> call(String name, JsonNode params, McpContext ctx) {
         McpTool tool = tools.get(name);
         if (tool == null) {
@@ -34,6 +101,174 @@ public class ToolRegistry {
             error.put("error", "Unknown tool: " + name);
             return CompletableFuture.completedFuture(error);
         }
-        return tool.call(params, ctx);
+        // Absent params are checked as {} so that missing required fields are reported as such
+        List<String> invalid = validators.get(name)
+                .validate(params == null || params.isMissingNode() || params.isNull() ? mapper.createObjectNode() : params);
+        if (!invalid.isEmpty()) {
+            return CompletableFuture.failedFuture(new InvalidParamsException(name, invalid));
+        }
+        if (memoized.contains(name) && ctx.getSpan().isPresent()) {
+            // The shared call runs under the top-level call, without this caller's _meta
+            CompletableFuture<JsonNode> shared = ctx.memoize(List.of(name, memoKey(params)),
+                    owner -> run(name, null, owner, callCtx -> tool.call(params, callCtx)));
+            return awaitShared(shared, timeoutFor(params, ctx), ctx);
+        }
+        McpContext caller = ctx.getSpan().isPresent() ? ctx : ctx.withPriority(priorityFor(params, ctx));
+        return run(name, timeoutFor(params, ctx), caller, callCtx -> tool.call(params, callCtx));
+    }
+
+    /**
+     * In-process call with typed params and result. A {@link TypedMcpTool} taking {@code params}' type gets
+     * the object as is and its result is returned without going through JSON; the params of such a call are
+     * checked by their Java types rather than the JSON schema. Other tools are called with the params
+     * converted to JSON and their result converted to {@code resultType}.
+     */
+    @SuppressWarnings("unchecked")
+    public <P, R> CompletableFuture<R> invoke(String name, P params, Class<R> resultType, McpContext ctx) {
+        McpTool tool = tools.get(name);
+        if (tool instanceof TypedMcpTool<?, ?> typed && typed.paramsType().isInstance(params)) {
+            TypedMcpTool<P, ?> t = (TypedMcpTool<P, ?>) typed;
+            Function<McpContext, CompletableFuture<Object>> start = runCtx -> run(name, timeoutFor(null, runCtx), runCtx,
+                    callCtx -> (CompletableFuture<Object>) t.invoke(params, callCtx));
+            CompletableFuture<Object> r = memoized.contains(name) && ctx.getSpan().isPresent()
+                    ? awaitShared(ctx.memoize(List.of(name, params), start), null, ctx)
+                    : start.apply(ctx);
+            return r.thenApply(v -> resultType.isInstance(v) ? resultType.cast(v) : mapper.convertValue(v, resultType));
+        }
+        return call(name, mapper.valueToTree(params), ctx).thenApply(r -> mapper.convertValue(r, resultType));
+    }
+
+    /**
+     * This caller's view of a memoized result: it stops waiting when its own call is cancelled or runs out
+     * of time, which leaves the shared call running for everyone else.
+     */
+    private static <T> CompletableFuture<T> awaitShared(CompletableFuture<T> shared, Duration timeout, McpContext ctx) {
+        Runnable unregister = ctx.getCancellation().onCancel(() ->
+                shared.completeExceptionally(new CancellationException(ctx.getCancellation().reason())));
+        shared.whenComplete((r, ex) -> unregister.run());
+        Duration limit = ctx.remaining().orElse(null);
+        if (timeout != null && (limit == null || timeout.compareTo(limit) < 0)) limit = timeout;
+        if (limit != null) shared.orTimeout(limit.toMillis(), TimeUnit.MILLISECONDS);
+        return shared;
+    }
+
+    private <T> CompletableFuture<T> run(String name, Duration timeout, McpContext ctx,
+                                         Function<McpContext, CompletableFuture<T>> body) {
+        if (ctx.isCancelled()) {
+            return CompletableFuture.failedFuture(new CancellationException(
+                    ctx.getCancellation().isCancelled() ? ctx.getCancellation().reason() : "Deadline exceeded"));
+        }
+        // Only top-level calls queue for admission; a nested call waiting on a slot its caller holds could deadlock
+        if (ctx.getSpan().isEmpty()) {
+            CompletableFuture<T> admitted = admission.admit(ctx.getPriority(), () -> start(name, timeout, ctx, body));
+            // Leave the queue when the request is cancelled while waiting
+            Runnable unregister = ctx.getCancellation().onCancel(() -> admitted.cancel(false));
+            admitted.whenComplete((r, ex) -> unregister.run());
+            return admitted;
+        }
+        return start(name, timeout, ctx, body);
+    }
+
+    private <T> CompletableFuture<T> start(String name, Duration timeout, McpContext ctx,
+                                           Function<McpContext, CompletableFuture<T>> body) {
+        // Unknown names never get here, so the tool tag stays bounded by the registered tools
+        CallSpan parent = ctx.getSpan().orElse(null);
+        Observation observation = Observation.createNotStarted("mcp.tool.call", observations)
+                .contextualName("mcp " + name)
+                .lowCardinalityKeyValue("tool", name);
+        if (parent != null) observation.parentObservation(parent.getObservation());
+        observation.start();
+        CallSpan span = new CallSpan(name, observation);
+        if (parent != null) parent.addChild(span);
+
+        McpContext callCtx = ctx.child(timeout, span);
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        // Only the call that introduced or tightened the deadline needs a timer; the rest inherit
+        // cancellation from it
+        ScheduledFuture<?> timer = null;
+        if (callCtx.getDeadline().isPresent() && !callCtx.getDeadline().equals(ctx.getDeadline())) {
+            long delayMs = callCtx.remaining().orElse(Duration.ZERO).toMillis();
+            timer = deadlines.schedule(() -> {
+                result.completeExceptionally(new TimeoutException("Deadline exceeded calling " + name));
+                callCtx.getCancellation().cancel("Deadline exceeded");
+            }, delayMs, TimeUnit.MILLISECONDS);
+        }
+        Runnable unregister = callCtx.getCancellation().onCancel(() ->
+                result.completeExceptionally(new CancellationException(callCtx.getCancellation().reason())));
+
+        CompletableFuture<T> work;
+        try {
+            work = body.apply(callCtx);
+        } catch (RuntimeException ex) {
+            work = CompletableFuture.failedFuture(ex);
+        }
+        work.whenComplete((r, ex) -> {
+            if (ex != null) result.completeExceptionally(ex);
+            else result.complete(r);
+        });
+
+        ScheduledFuture<?> t = timer;
+        CompletableFuture<T> w = work;
+        result.whenComplete((r, ex) -> {
+            if (t != null) t.cancel(false);
+            unregister.run();
+            // The caller cancelled or gave up: stop whatever is still running underneath
+            if (!w.isDone()) {
+                callCtx.getCancellation().cancel(result.isCancelled() ? "Cancelled by caller" : "Abandoned");
+                w.cancel(true);
+            }
+            callCtx.getCancellation().detach();
+            finish(span, parent == null, r, ex);
+        });
+        return result;
+    }
+
+    private void finish(CallSpan span, boolean topLevel, Object r, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        String outcome;
+        if (cause instanceof TimeoutException) outcome = "timeout";
+        else if (cause instanceof CancellationException) outcome = "cancelled";
+        else if (cause != null || (r instanceof JsonNode n && n.has("error"))) outcome = "error";
+        else outcome = "success";
+        span.finish(outcome);
+
+        Observation observation = span.getObservation();
+        observation.lowCardinalityKeyValue(KeyValue.of("outcome", outcome));
+        if ("error".equals(outcome) && cause != null) observation.error(cause);
+        observation.stop();
+
+        if (topLevel && span.durationMillis() >= slowThresholdMs) {
+            log.warn("Slow MCP call {} took {} ms:\n{}", span.getTool(), span.durationMillis(), span.render());
+        }
+    }
+
+    // Params as they affect the result: _meta only carries progress tokens and timeouts
+    private static JsonNode memoKey(JsonNode params) {
+        if (params instanceof ObjectNode obj && obj.has("_meta")) {
+            ObjectNode copy = obj.deepCopy();
+            copy.remove("_meta");
+            return copy;
+        }
+        return params == null ? NullNode.getInstance() : params;
+    }
+
+    private static RequestPriority priorityFor(JsonNode params, McpContext ctx) {
+        JsonNode requested = params == null ? null : params.path("_meta").get("priority");
+        RequestPriority p = requested == null ? ctx.getPriority() : RequestPriority.parse(requested.asText(), ctx.getPriority());
+        return p.compareTo(ctx.getPriority()) > 0 ? p : ctx.getPriority();
+    }
+
+    private Duration timeoutFor(JsonNode params, McpContext ctx) {
+        JsonNode requested = params == null ? null : params.path("_meta").get("timeoutMs");
+        if (requested != null && requested.canConvertToLong() && requested.asLong() > 0) {
+            return Duration.ofMillis(requested.asLong());
+        }
+        return ctx.getDeadline().isPresent() ? null : Duration.ofMillis(defaultTimeoutMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deadlines.shutdownNow();
     }
 }
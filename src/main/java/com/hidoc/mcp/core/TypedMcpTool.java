@@ -0,0 +1,37 @@
+package com.hidoc.mcp.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A tool with Java types for its params and result. JSON-RPC calls are bound to {@code P} with Jackson and
+ * the result is serialized; in-process callers use {@link ToolRegistry#invoke} and skip JSON entirely.
+ * Fields the type does not declare, such as {@code _meta}, are ignored when binding.
+ */
+public interface TypedMcpTool<P, R> extends McpTool {
+
+    Class<P> paramsType();
+
+    CompletableFuture<R> invoke(P params, McpContext ctx);
+
+    @Override
+    default CompletableFuture<JsonNode> call(JsonNode params, McpContext ctx) {
+        ObjectMapper mapper = ctx.getMapper();
+        P bound;
+        try {
+            bound = mapper.readerFor(paramsType())
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(params == null || params.isMissingNode() ? mapper.createObjectNode() : params);
+        } catch (IOException e) {
+            String reason = e instanceof JsonProcessingException jpe ? jpe.getOriginalMessage() : e.getMessage();
+            return CompletableFuture.failedFuture(new InvalidParamsException(name(), List.of(reason)));
+        }
+        return invoke(bound, ctx).thenApply(mapper::valueToTree);
+    }
+}
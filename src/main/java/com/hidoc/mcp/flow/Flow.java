@@ -0,0 +1,98 @@
+package com.hidoc.mcp.flow;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A pipeline of tool calls declared as a DAG. Nodes are kept in dependency order; {@link FlowEngine} starts
+ * each node as soon as its dependencies finish, so independent nodes run in parallel.
+ */
+public final class Flow {
+    private final String name;
+    private final List<FlowNode> nodes;
+    private final Function<FlowState, JsonNode> output;
+    private final Duration timeout;
+
+    private Flow(String name, List<FlowNode> nodes, Function<FlowState, JsonNode> output, Duration timeout) {
+        this.name = name;
+        this.nodes = nodes;
+        this.output = output;
+        this.timeout = timeout;
+    }
+
+    public String name() { return name; }
+    public List<FlowNode> nodes() { return nodes; }
+    public Function<FlowState, JsonNode> output() { return output; }
+    public Duration timeout() { return timeout; }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public static final class Builder {
+        private final String name;
+        private final Map<String, FlowNode> nodes = new LinkedHashMap<>();
+        private Function<FlowState, JsonNode> output;
+        private Duration timeout;
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder node(FlowNode node) {
+            if (nodes.putIfAbsent(node.id(), node) != null) {
+                throw new IllegalArgumentException("Flow '" + name + "' declares node '" + node.id() + "' twice");
+            }
+            return this;
+        }
+
+        public Builder node(FlowNode.Builder node) {
+            return node(node.build());
+        }
+
+        public Builder output(Function<FlowState, JsonNode> output) { this.output = output; return this; }
+
+        /** Output is the result of the given node. */
+        public Builder output(String nodeId) { return output(s -> s.result(nodeId)); }
+
+        /** Budget for the whole flow; nodes share what is left of it. */
+        public Builder timeout(Duration timeout) { this.timeout = timeout; return this; }
+
+        public Flow build() {
+            if (output == null) throw new IllegalStateException("Flow '" + name + "' has no output");
+            return new Flow(name, topologicalOrder(), output, timeout);
+        }
+
+        // Kahn's algorithm; also rejects unknown dependencies and cycles
+        private List<FlowNode> topologicalOrder() {
+            Map<String, Integer> pending = new HashMap<>();
+            Map<String, List<String>> dependents = new HashMap<>();
+            for (FlowNode n : nodes.values()) {
+                pending.put(n.id(), n.dependsOn().size());
+                for (String dep : n.dependsOn()) {
+                    if (!nodes.containsKey(dep)) {
+                        throw new IllegalStateException("Flow '" + name + "': node '" + n.id() + "' depends on unknown node '" + dep + "'");
+                    }
+                    dependents.computeIfAbsent(dep, k -> new ArrayList<>()).add(n.id());
+                }
+            }
+            Deque<String> ready = new ArrayDeque<>();
+            nodes.keySet().stream().filter(id -> pending.get(id) == 0).forEach(ready::add);
+            List<FlowNode> ordered = new ArrayList<>(nodes.size());
+            while (!ready.isEmpty()) {
+                String id = ready.poll();
+                ordered.add(nodes.get(id));
+                for (String d : dependents.getOrDefault(id, List.of())) {
+                    if (pending.merge(d, -1, Integer::sum) == 0) ready.add(d);
+                }
+            }
+            if (ordered.size() != nodes.size()) {
+                throw new IllegalStateException("Flow '" + name + "' has a dependency cycle");
+            }
+            return List.copyOf(ordered);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.hidoc.mcp.flow;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.hidoc.api.config.McpFlowProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Flows declared in configuration ({@link McpFlowProperties}), compiled once at startup so that a bad
+ * definition fails the boot rather than a request. References use {@code {{...}}} rather than {@code ${...}},
+ * which Spring would try to resolve as a property placeholder.
+ */
+@Component
+public class FlowCatalog {
+
+    private static final Pattern REF = Pattern.compile("\\{\\{([A-Za-z0-9_.-]+)}}");
+
+    private final ObjectMapper mapper;
+    private final Map<String, Flow> flows = new LinkedHashMap<>();
+
+    public FlowCatalog(ObjectMapper mapper, McpFlowProperties props) {
+        this.mapper = mapper;
+        props.getFlows().forEach((name, def) -> flows.put(name, compile(name, def)));
+    }
+
+    public Optional<Flow> find(String name) {
+        return Optional.ofNullable(flows.get(name));
+    }
+
+    public Set<String> names() {
+        return Collections.unmodifiableSet(flows.keySet());
+    }
+
+    private Flow compile(String name, McpFlowProperties.FlowDefinition def) {
+        if (def.getOutput() == null || def.getOutput().isBlank()) {
+            throw new IllegalStateException("mcp.flows." + name + ".output is required");
+        }
+        if (def.getNodes().stream().noneMatch(n -> def.getOutput().equals(n.getId()))) {
+            throw new IllegalStateException("mcp.flows." + name + ".output names unknown node '" + def.getOutput() + "'");
+        }
+        Flow.Builder flow = Flow.builder(name).output(def.getOutput());
+        if (def.getTimeoutMs() != null) flow.timeout(Duration.ofMillis(def.getTimeoutMs()));
+        for (McpFlowProperties.NodeDefinition n : def.getNodes()) {
+            if (n.getId() == null || n.getTool() == null) {
+                throw new IllegalStateException("mcp.flows." + name + ": every node needs an id and a tool");
+            }
+            JsonNode params = mapper.valueToTree(n.getParams());
+            JsonNode fallback = n.getFallback() == null ? null : mapper.valueToTree(n.getFallback());
+            FlowNode.Builder node = FlowNode.call(n.getId(), n.getTool())
+                    .after(n.getDependsOn().toArray(String[]::new))
+                    .params(state -> resolve(params, state));
+            if (n.getTimeoutMs() != null) node.timeout(Duration.ofMillis(n.getTimeoutMs()));
+            if (fallback != null) node.fallback((state, ex) -> resolve(fallback, state));
+            flow.node(node);
+        }
+        return flow.build();
+    }
+
+    private JsonNode resolve(JsonNode template, FlowState state) {
+        if (template instanceof ObjectNode obj) {
+            ObjectNode out = mapper.createObjectNode();
+            obj.fields().forEachRemaining(e -> out.set(e.getKey(), resolve(e.getValue(), state)));
+            return out;
+        }
+        if (template instanceof ArrayNode arr) {
+            ArrayNode out = mapper.createArrayNode();
+            arr.forEach(v -> out.add(resolve(v, state)));
+            return out;
+        }
+        if (!template.isTextual() || !template.asText().contains("{{")) {
+            return template;
+        }
+        String text = template.asText();
+        Matcher m = REF.matcher(text);
+        if (m.matches()) {
+            return lookup(m.group(1), state);
+        }
+        StringBuilder sb = new StringBuilder();
+        m.reset();
+        while (m.find()) {
+            JsonNode v = lookup(m.group(1), state);
+            m.appendReplacement(sb, Matcher.quoteReplacement(v.isValueNode() ? v.asText() : v.isMissingNode() ? "" : v.toString()));
+        }
+        m.appendTail(sb);
+        return TextNode.valueOf(sb.toString());
+    }
+
+    private static JsonNode lookup(String ref, FlowState state) {
+        String[] path = ref.split("\\.");
+        JsonNode node = "input".equals(path[0]) ? state.input() : state.result(path[0]);
+        for (int i = 1; i < path.length; i++) {
+            node = node.path(path[i]);
+        }
+        return node;
+    }
+}
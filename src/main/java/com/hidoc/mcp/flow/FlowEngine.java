@@ -0,0 +1,106 @@
+package com.hidoc.mcp.flow;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hidoc.api.exception.OverloadedException;
+import com.hidoc.mcp.core.McpContext;
+import com.hidoc.mcp.core.ToolRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs {@link Flow}s through the {@link ToolRegistry}. Each node starts as soon as its dependencies have
+ * finished; nodes that resolve to the same tool and params within one run share a single call. Node
+ * timeouts are passed down as {@code _meta.timeoutMs}, bounded by what is left of the flow's timeout.
+ * Progress notifications are sent as nodes start when the flow input carries {@code _meta.progressToken}.
+ */
+@Component
+public class FlowEngine {
+
+    // Lazy: the registry collects the tools that use this engine
+    private final ObjectProvider<ToolRegistry> registryProvider;
+
+    public FlowEngine(ObjectProvider<ToolRegistry> registryProvider) {
+        this.registryProvider = registryProvider;
+    }
+
+    public CompletableFuture<JsonNode> run(Flow flow, JsonNode input, McpContext ctx) {
+        FlowState state = new FlowState(input);
+        Instant deadline = flow.timeout() == null ? null : Instant.now().plus(flow.timeout());
+        Map<String, CompletableFuture<JsonNode>> memo = new ConcurrentHashMap<>();
+        Map<String, CompletableFuture<JsonNode>> started = new HashMap<>();
+        AtomicInteger finished = new AtomicInteger();
+        int total = flow.nodes().size();
+        for (FlowNode node : flow.nodes()) {
+            CompletableFuture<?>[] deps = node.dependsOn().stream().map(started::get).toArray(CompletableFuture[]::new);
+            CompletableFuture<JsonNode> f = CompletableFuture.allOf(deps)
+                    .thenCompose(v -> {
+                        ctx.progress(state.input(), finished.get(), total, "Running " + node.id());
+                        return execute(node, state, memo, deadline, ctx);
+                    })
+                    .thenApply(r -> {
+                        state.put(node.id(), r);
+                        finished.incrementAndGet();
+                        return r;
+                    });
+            started.put(node.id(), f);
+        }
+        return CompletableFuture.allOf(started.values().toArray(CompletableFuture[]::new))
+                .thenApply(v -> flow.output().apply(state));
+    }
+
+    private CompletableFuture<JsonNode> execute(FlowNode node, FlowState state,
+                                                Map<String, CompletableFuture<JsonNode>> memo,
+                                                Instant deadline, McpContext ctx) {
+        if (!node.when().test(state)) {
+            return CompletableFuture.completedFuture(NullNode.getInstance());
+        }
+        String tool = node.tool().apply(state);
+        JsonNode params = node.params().apply(state);
+        String key = tool + '\u0000' + params;
+        Duration timeout = timeout(node, deadline);
+        CompletableFuture<JsonNode> call = memo.computeIfAbsent(key,
+                k -> registryProvider.getObject().call(tool, withTimeout(params, timeout), ctx));
+        if (node.fallback() == null) {
+            return call;
+        }
+        return call.exceptionally(ex -> {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            // A cancelled request gets no fallback; let the cancellation through. Shed work is not papered
+            // over either, so the caller gets 429 and Retry-After rather than a fallback reply
+            if (ctx.isCancelled() || cause instanceof OverloadedException) {
+                throw ex instanceof CompletionException ce ? ce : new CompletionException(ex);
+            }
+            return node.fallback().apply(state, cause);
+        });
+    }
+
+    private static Duration timeout(FlowNode node, Instant deadline) {
+        Duration timeout = node.timeout();
+        if (deadline != null) {
+            Duration left = Duration.between(Instant.now(), deadline);
+            if (left.isNegative()) left = Duration.ZERO;
+            if (timeout == null || left.compareTo(timeout) < 0) timeout = left;
+        }
+        return timeout;
+    }
+
+    private static JsonNode withTimeout(JsonNode params, Duration timeout) {
+        if (timeout == null || !(params instanceof ObjectNode obj)) return params;
+        ObjectNode copy = obj.deepCopy();
+        JsonNode meta = copy.get("_meta");
+        ObjectNode m = meta instanceof ObjectNode o ? o : copy.putObject("_meta");
+        m.put("timeoutMs", Math.max(1, timeout.toMillis()));
+        return copy;
+    }
+}
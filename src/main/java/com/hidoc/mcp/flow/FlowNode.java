@@ -0,0 +1,67 @@
+package com.hidoc.mcp.flow;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * One tool invocation in a {@link Flow}. The tool name and params are computed from the flow state once
+ * every node in {@code dependsOn} has finished, so a node can route on an earlier node's result.
+ *
+ * @param when     skip the node (result: null) unless this holds
+ * @param timeout  per-node budget, passed to the registry as {@code _meta.timeoutMs}; null inherits the flow's
+ * @param fallback result to use when the call fails, computed from the flow state and the failure; null lets
+ *                 the failure fail the dependent nodes
+ */
+public record FlowNode(String id,
+                       List<String> dependsOn,
+                       Function<FlowState, String> tool,
+                       Function<FlowState, JsonNode> params,
+                       Predicate<FlowState> when,
+                       Duration timeout,
+                       BiFunction<FlowState, Throwable, JsonNode> fallback) {
+
+    public FlowNode {
+        dependsOn = dependsOn == null ? List.of() : List.copyOf(dependsOn);
+        when = when == null ? s -> true : when;
+    }
+
+    public static Builder call(String id, String tool) {
+        return new Builder(id, s -> tool);
+    }
+
+    public static Builder call(String id, Function<FlowState, String> tool) {
+        return new Builder(id, tool);
+    }
+
+    public static final class Builder {
+        private final String id;
+        private final Function<FlowState, String> tool;
+        private List<String> dependsOn = List.of();
+        private Function<FlowState, JsonNode> params;
+        private Predicate<FlowState> when;
+        private Duration timeout;
+        private BiFunction<FlowState, Throwable, JsonNode> fallback;
+
+        private Builder(String id, Function<FlowState, String> tool) {
+            this.id = id;
+            this.tool = tool;
+        }
+
+        public Builder after(String... ids) { this.dependsOn = List.of(ids); return this; }
+        public Builder params(Function<FlowState, JsonNode> params) { this.params = params; return this; }
+        public Builder when(Predicate<FlowState> when) { this.when = when; return this; }
+        public Builder timeout(Duration timeout) { this.timeout = timeout; return this; }
+        public Builder fallback(Function<Throwable, JsonNode> fallback) { return fallback((s, ex) -> fallback.apply(ex)); }
+        public Builder fallback(BiFunction<FlowState, Throwable, JsonNode> fallback) { this.fallback = fallback; return this; }
+
+        public FlowNode build() {
+            if (params == null) throw new IllegalStateException("Flow node '" + id + "' has no params");
+            return new FlowNode(id, dependsOn, tool, params, when, timeout, fallback);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.hidoc.mcp.flow;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** The flow input and the results of the nodes finished so far. */
+public final class FlowState {
+    private final JsonNode input;
+    private final Map<String, JsonNode> results = new ConcurrentHashMap<>();
+
+    FlowState(JsonNode input) {
+        this.input = input == null ? MissingNode.getInstance() : input;
+    }
+
+    public JsonNode input() {
+        return input;
+    }
+
+    /** The node's result; missing when the node was skipped or has not run. */
+    public JsonNode result(String nodeId) {
+        JsonNode r = results.get(nodeId);
+        return r == null || r.isNull() ? MissingNode.getInstance() : r;
+    }
+
+    public boolean ran(String nodeId) {
+        JsonNode r = results.get(nodeId);
+        return r != null && !r.isNull();
+    }
+
+    void put(String nodeId, JsonNode result) {
+        results.put(nodeId, result == null ? NullNode.getInstance() : result);
+    }
+}
@@ -7,6 +7,7 @@ import com.hidoc.api.ai.AIProvider;
 import com.hidoc.api.ai.model.AIRequest;
 import com.hidoc.api.ai.model.AIResponse;
 import com.hidoc.api.ai.service.AIProxyService;
+import com.hidoc.api.exception.OverloadedException;
 import com.hidoc.mcp.core.McpContext;
 import com.hidoc.mcp.core.McpTool;
 import com.hidoc.mcp.util.PromptLoader;
@@ -32,11 +33,11 @@ public abstract class AbstractPromptTool implements McpTool {
         ObjectNode s = mapper.createObjectNode();
         s.put("type", "object");
         ObjectNode props = s.putObject("properties");
-        props.putObject("user_id").put("type", "string");
+        props.putObject("user_id").put("type", "string").put("description", "Defaults to the authenticated user");
         props.putObject("message").put("type", "string");
         props.putObject("context").put("type", "string");
         props.putObject("provider").put("type", "string");
-        s.putArray("required").add("user_id").add("message");
+        s.putArray("required").add("message");
         return s;
     }
 
@@ -68,11 +69,20 @@ public abstract class AbstractPromptTool implements McpTool {
                 req.setEmail(userId);
             }
             req.setProvider(provider);
+            req.setTool(name());
             req.setMessage(sb.toString());
+            req.setCancellation(ctx.getCancellation());
+            req.setDeadline(ctx.getDeadline().orElse(null));
+            req.setPriority(ctx.getPriority());
             AIResponse resp;
             try {
                 resp = proxy.process(req);
+            } catch (OverloadedException ex) {
+                // Shed by admission control: the caller answers 429 with Retry-After instead of a fallback reply
+                throw ex;
             } catch (RuntimeException ex) {
+                // Nobody is waiting for a fallback reply once the call has been cancelled
+                ctx.throwIfCancelled();
                 ObjectNode out = mapper.createObjectNode();
                 out.put("text", fallbackMessage());
                 out.put("model", "error");
@@ -1,5 +1,6 @@
 package com.hidoc.mcp.tools;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -7,17 +8,19 @@ import com.hidoc.api.ai.AIProvider;
 import com.hidoc.api.ai.model.AIRequest;
 import com.hidoc.api.ai.model.AIResponse;
 import com.hidoc.api.ai.service.AIProxyService;
+import com.hidoc.mcp.core.InvalidParamsException;
 import com.hidoc.mcp.core.McpContext;
-import com.hidoc.mcp.core.McpTool;
+import com.hidoc.mcp.core.TypedMcpTool;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 @Component
-public class AiChatTool implements McpTool {
+public class AiChatTool implements TypedMcpTool<AiChatTool.Params, ChatReply> {
     private final ObjectMapper mapper;
     private final AIProxyService proxy;
 
@@ -34,52 +37,44 @@ public class AiChatTool implements McpTool {
         ObjectNode s = mapper.createObjectNode();
         s.put("type", "object");
         ObjectNode props = s.putObject("properties");
-        props.putObject("user_id").put("type", "string");
+        props.putObject("user_id").put("type", "string").put("description", "Defaults to the authenticated user");
         props.putObject("message").put("type", "string");
         props.putObject("provider").put("type", "string");
         props.putObject("metadata").put("type", "object");
-        s.putArray("required").add("user_id").add("message");
+        s.putArray("required").add("message");
         return s;
     }
 
     @Override
-    public CompletableFuture<JsonNode> call(JsonNode params, McpContext ctx) {
+    public Class<Params> paramsType() { return Params.class; }
+
+    @Override
+    public CompletableFuture<ChatReply> invoke(Params params, McpContext ctx) {
         return CompletableFuture.supplyAsync(() -> {
-            String userId = val(params, "user_id", ctx.getUserId().orElse(null));
-            String message = val(params, "message", null);
-            String providerStr = val(params, "provider", "OPENAI");
-            if (userId == null || message == null) {
-                ObjectNode err = mapper.createObjectNode();
-                err.put("error", "user_id and message are required");
-                return err;
+            String userId = params.userId() != null ? params.userId() : ctx.getUserId().orElse(null);
+            if (userId == null || params.message() == null) {
+                throw new InvalidParamsException(name(), List.of("user_id and message are required"));
             }
             AIProvider provider;
             try {
-                provider = AIProvider.valueOf(providerStr.toUpperCase(Locale.ROOT));
+                provider = AIProvider.valueOf((params.provider() == null ? "OPENAI" : params.provider()).toUpperCase(Locale.ROOT));
             } catch (Exception e) {
                 provider = AIProvider.OPENAI;
             }
             AIRequest req = new AIRequest();
             req.setUserId(userId);
-            req.setMessage(message);
+            req.setMessage(params.message());
             req.setProvider(provider);
-            if (params.has("metadata") && params.get("metadata").isObject()) {
-                Map<String, Object> meta = mapper.convertValue(params.get("metadata"), Map.class);
-                req.setMetadata(meta);
-            } else {
-                req.setMetadata(new HashMap<>());
-            }
+            req.setTool(name());
+            req.setCancellation(ctx.getCancellation());
+            req.setDeadline(ctx.getDeadline().orElse(null));
+            req.setPriority(ctx.getPriority());
+            req.setMetadata(params.metadata() == null ? new HashMap<>() : new HashMap<>(params.metadata()));
             AIResponse resp = proxy.process(req);
-            ObjectNode out = mapper.createObjectNode();
-            out.put("text", resp.getResponse());
-            out.put("model", resp.getModel());
-            out.put("tokensUsed", resp.getTokensUsed() == null ? 0 : resp.getTokensUsed());
-            return out;
+            return ChatReply.of(resp.getResponse(), resp.getModel(), resp.getTokensUsed());
         });
     }
 
-    private String val(JsonNode node, String field, String def) {
-        JsonNode n = node.get(field);
-        return n == null || n.isNull() ? def : n.asText();
-    }
+    public record Params(@JsonProperty("user_id") String userId, String message, String provider,
+                         Map<String, Object> metadata) {}
 }
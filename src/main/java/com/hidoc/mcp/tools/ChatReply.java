@@ -0,0 +1,14 @@
+package com.hidoc.mcp.tools;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** Result of the chat-style tools: the reply text, the model that produced it and the tokens it used. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ChatReply(String text, String model, Integer tokensUsed, String error) {
+
+    public static ChatReply of(String text, String model, Integer tokensUsed) {
+        return new ChatReply(text, model, tokensUsed == null ? 0 : tokensUsed, null);
+    }
+}
@@ -0,0 +1,54 @@
+package com.hidoc.mcp.tools;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hidoc.mcp.core.McpContext;
+import com.hidoc.mcp.core.McpTool;
+import com.hidoc.mcp.flow.Flow;
+import com.hidoc.mcp.flow.FlowCatalog;
+import com.hidoc.mcp.flow.FlowEngine;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/** Runs one of the flows declared under mcp.flows with the given input. */
+@Component
+public class FlowRunTool implements McpTool {
+    private final ObjectMapper mapper;
+    private final FlowCatalog catalog;
+    private final FlowEngine engine;
+
+    public FlowRunTool(ObjectMapper mapper, FlowCatalog catalog, FlowEngine engine) {
+        this.mapper = mapper;
+        this.catalog = catalog;
+        this.engine = engine;
+    }
+
+    @Override
+    public String name() { return "flow.run"; }
+
+    @Override
+    public JsonNode schema() {
+        ObjectNode s = mapper.createObjectNode();
+        s.put("type", "object");
+        ObjectNode props = s.putObject("properties");
+        props.putObject("flow").put("type", "string");
+        props.putObject("input").put("type", "object");
+        s.putArray("required").add("flow");
+        return s;
+    }
+
+    @Override
+    public CompletableFuture<JsonNode> call(JsonNode params, McpContext ctx) {
+        String name = params.path("flow").asText("");
+        Optional<Flow> flow = catalog.find(name);
+        if (flow.isEmpty()) {
+            ObjectNode err = mapper.createObjectNode();
+            err.put("error", "Unknown flow: " + name);
+            return CompletableFuture.completedFuture(err);
+        }
+        return engine.run(flow.get(), params.path("input"), ctx);
+    }
+}
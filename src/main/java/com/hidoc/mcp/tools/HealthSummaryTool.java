@@ -0,0 +1,97 @@
+package com.hidoc.mcp.tools;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hidoc.api.service.HealthSummaryService;
+import com.hidoc.api.service.HealthSummaryService.HealthSummary;
+import com.hidoc.api.service.HealthSummaryService.MetricSummary;
+import com.hidoc.api.service.HealthSummaryService.Window;
+import com.hidoc.mcp.core.McpContext;
+import com.hidoc.mcp.core.Memoized;
+import com.hidoc.mcp.core.TypedMcpTool;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Returns the authenticated user's cached health summary, both as structured data and as a compact text
+ * block that prompt tools can take as context. The user always comes from the call's context, never from
+ * params, so one caller cannot read another user's data.
+ */
+@Component
+@Memoized
+public class HealthSummaryTool implements TypedMcpTool<HealthSummaryTool.Params, HealthSummaryTool.Result> {
+    private final ObjectMapper mapper;
+    private final HealthSummaryService summaryService;
+
+    public HealthSummaryTool(ObjectMapper mapper, HealthSummaryService summaryService) {
+        this.mapper = mapper;
+        this.summaryService = summaryService;
+    }
+
+    @Override
+    public String name() { return "health.summary"; }
+
+    @Override
+    public JsonNode schema() {
+        ObjectNode s = mapper.createObjectNode();
+        s.put("type", "object");
+        s.putObject("properties");
+        return s;
+    }
+
+    @Override
+    public Class<Params> paramsType() { return Params.class; }
+
+    @Override
+    public CompletableFuture<Result> invoke(Params params, McpContext ctx) {
+        return CompletableFuture.supplyAsync(() -> {
+            String userId = ctx.getUserId().orElse("");
+            if (userId.isBlank()) {
+                return new Result("", null);
+            }
+            HealthSummary summary = summaryService.getSummary(userId);
+            return new Result(toContext(summary), summary);
+        });
+    }
+
+    public record Params() {}
+
+    /** {@code summary} is absent when there is no user to summarize. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Result(String context, HealthSummary summary) {}
+
+    private static String toContext(HealthSummary summary) {
+        if (summary.metrics() == null || summary.metrics().isEmpty()) return "";
+        StringBuilder sb = new StringBuilder("Recent health measurements:\n");
+        for (Map.Entry<String, MetricSummary> e : summary.metrics().entrySet()) {
+            MetricSummary m = e.getValue();
+            String unit = m.unit() == null ? "" : " " + m.unit();
+            sb.append("- ").append(e.getKey().toLowerCase(Locale.ROOT).replace('_', ' ')).append(": latest ")
+                    .append(format(m.latestValue()));
+            if (m.latestValue2() != null) sb.append('/').append(format(m.latestValue2()));
+            sb.append(unit);
+            if (m.latestAt() != null) sb.append(" at ").append(m.latestAt());
+            appendWindow(sb, "7d", m.last7Days());
+            appendWindow(sb, "30d", m.last30Days());
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void appendWindow(StringBuilder sb, String label, Window w) {
+        if (w == null || w.count() == 0) return;
+        sb.append("; ").append(label).append(" avg ").append(format(w.average()))
+                .append(" (min ").append(format(w.min())).append(", max ").append(format(w.max()))
+                .append(", n=").append(w.count()).append(')');
+    }
+
+    private static String format(Double v) {
+        if (v == null) return "-";
+        return v == Math.rint(v) ? String.valueOf(v.longValue()) : String.format(Locale.ROOT, "%.1f", v);
+    }
+}
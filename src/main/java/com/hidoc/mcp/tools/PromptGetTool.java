@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.hidoc.mcp.core.McpContext;
+import com.hidoc.mcp.core.Memoized;
 import com.hidoc.mcp.core.McpTool;
 import com.hidoc.mcp.util.PromptLoader;
 import org.springframework.stereotype.Component;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Component;
 import java.util.concurrent.CompletableFuture;
 
 @Component
+@Memoized
 public class PromptGetTool implements McpTool {
     private final ObjectMapper mapper;
     private final PromptLoader loader;
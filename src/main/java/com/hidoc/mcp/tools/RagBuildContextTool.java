@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.hidoc.mcp.core.McpContext;
+import com.hidoc.mcp.core.Memoized;
 import com.hidoc.mcp.core.McpTool;
 import org.springframework.stereotype.Component;
 
@@ -16,6 +17,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Component
+@Memoized
 public class RagBuildContextTool implements McpTool {
     private final ObjectMapper mapper;
 
@@ -1,27 +1,52 @@
 package com.hidoc.mcp.tools;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hidoc.mcp.core.InvalidParamsException;
 import com.hidoc.mcp.core.McpContext;
-import com.hidoc.mcp.core.McpTool;
-import com.hidoc.mcp.core.ToolRegistry;
+import com.hidoc.mcp.core.TypedMcpTool;
+import com.hidoc.mcp.flow.Flow;
+import com.hidoc.mcp.flow.FlowCatalog;
+import com.hidoc.mcp.flow.FlowEngine;
+import com.hidoc.mcp.flow.FlowNode;
+import com.hidoc.mcp.flow.FlowState;
 import com.hidoc.mcp.util.PromptLoader;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.CompletableFuture;
 
+/**
+ * Classifies a message and routes it to a specialised tool, as a flow:
+ * <pre>
+ *   rag ──> classify ──> summary ──> route
+ * </pre>
+ * The health summary is only fetched once the classifier has picked a route that takes context; it is not
+ * needed for ai.chat or when the classifier reply is answered directly. A message type with a flow declared
+ * as {@code mcp.flows.route-<message_type>} is routed to that flow instead of a built-in tool.
+ */
 @Component
-public class RoutingTool implements McpTool {
+public class RoutingTool implements TypedMcpTool<RoutingTool.Params, ChatReply> {
+    private static final Duration CLASSIFY_TIMEOUT = Duration.ofSeconds(30);
+
     private final ObjectMapper mapper;
-    private final org.springframework.beans.factory.ObjectProvider<ToolRegistry> registryProvider;
+    private final FlowEngine engine;
+    private final FlowCatalog catalog;
     private final PromptLoader prompts;
+    private final Flow flow;
 
-    public RoutingTool(ObjectMapper mapper, org.springframework.beans.factory.ObjectProvider<ToolRegistry> registryProvider, PromptLoader prompts) {
+    public RoutingTool(ObjectMapper mapper, FlowEngine engine, FlowCatalog catalog, PromptLoader prompts) {
         this.mapper = mapper;
-        this.registryProvider = registryProvider;
+        this.engine = engine;
+        this.catalog = catalog;
         this.prompts = prompts;
+        this.flow = buildFlow();
     }
 
     @Override
@@ -32,110 +57,179 @@ public class RoutingTool implements McpTool {
         ObjectNode s = mapper.createObjectNode();
         s.put("type", "object");
         ObjectNode props = s.putObject("properties");
-        props.putObject("user_id").put("type", "string");
+        props.putObject("user_id").put("type", "string")
+                .put("description", "Defaults to the authenticated user, and must match it when given");
         props.putObject("message").put("type", "string");
         props.putObject("conversation_history").put("type", "array");
         props.putObject("include_rag").put("type", "boolean").put("default", true);
-        s.putArray("required").add("user_id").add("message");
+        props.putObject("include_health_summary").put("type", "boolean").put("default", true);
+        s.putArray("required").add("message");
         return s;
     }
 
     @Override
-    public CompletableFuture<JsonNode> call(JsonNode params, McpContext ctx) {
-        return CompletableFuture.supplyAsync(() -> {
-            String userId = params.path("user_id").asText(ctx.getUserId().orElse(""));
-            String message = params.path("message").asText("");
-            boolean includeRag = params.path("include_rag").asBoolean(true);
-            JsonNode history = params.path("conversation_history");
-
-            String context = null;
-            if (includeRag && history != null && history.isArray() && history.size() > 0) {
-                ObjectNode rp = mapper.createObjectNode();
-                rp.put("message", message);
-                rp.set("conversation_history", history);
-                JsonNode rag = registryProvider.getObject().call("rag.build_context_from_history", rp, ctx).join();
-                context = rag.path("context").asText(null);
-            }
-
-            // Step 1: Run classification using message_classifier_prompt with master prompt guidance
-            JsonNode classification = runClassifier(userId, message, context, ctx);
-
-            // Step 2: If classification failed, or says parsed=false => treat as QUERY per master_prompt lines 43-46
-            if (classification == null || !classification.path("parsed").asBoolean(false)) {
-                String reply = classification != null ? classification.path("reply").asText("") : "";
-                if (reply == null || reply.isBlank()) {
-                    reply = buildSafeQueryReply(message);
-                } else {
-                    reply = enforceReplyRules(reply);
-                }
-                ObjectNode out = mapper.createObjectNode();
-                out.put("text", reply);
-                out.put("model", "classifier");
-                out.put("tokensUsed", 0);
-                return out;
-            }
+    public Class<Params> paramsType() { return Params.class; }
 
-            // Step 3: Route to specialized tool when parsed=true
-            String routeTo = classification.path("route_to").asText("");
-            String msgType = classification.path("message_type").asText("");
-            String tool = mapRouteToTool(routeTo, msgType, message);
+    @Override
+    public CompletableFuture<ChatReply> invoke(Params params, McpContext ctx) {
+        String authenticated = ctx.getUserId().orElse(null);
+        if (authenticated != null && params.userId() != null && !params.userId().equals(authenticated)) {
+            return CompletableFuture.failedFuture(new InvalidParamsException(name(),
+                    List.of("user_id: must be the authenticated user")));
+        }
+        // The flow reads its input as JSON; this is the one tree built per routed message
+        ObjectNode input = mapper.valueToTree(params);
+        input.put("user_id", authenticated != null ? authenticated : params.userId() == null ? "" : params.userId());
+        return engine.run(flow, input, ctx).thenApply(out -> mapper.convertValue(out, ChatReply.class));
+    }
 
-            ObjectNode callParams = mapper.createObjectNode();
-            callParams.put("user_id", userId);
-            callParams.put("message", message);
-            if (context != null && !context.isBlank()) callParams.put("context", context);
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Params(@JsonProperty("user_id") String userId,
+                         String message,
+                         @JsonProperty("conversation_history") JsonNode conversationHistory,
+                         @JsonProperty("include_rag") Boolean includeRag,
+                         @JsonProperty("include_health_summary") Boolean includeHealthSummary,
+                         // Progress token and timeout, passed on to the flow
+                         @JsonProperty("_meta") JsonNode meta) {
 
-            // For ai.chat we don't pass context
-            if ("ai.chat".equals(tool)) {
-                callParams.remove("context");
-            }
+        public Params(String userId, String message, JsonNode conversationHistory) {
+            this(userId, message, conversationHistory, null, null, null);
+        }
+    }
 
-            try {
-                return registryProvider.getObject().call(tool, callParams, ctx).join();
-            } catch (RuntimeException ex) {
-                ObjectNode out = mapper.createObjectNode();
-                out.put("text", buildProviderDownMessage(ex));
-                out.put("model", "error");
-                out.put("tokensUsed", 0);
-                return out;
-            }
-        });
+    private Flow buildFlow() {
+        return Flow.builder(name())
+                .node(FlowNode.call("rag", "rag.build_context_from_history")
+                        .when(s -> s.input().path("include_rag").asBoolean(true)
+                                && s.input().path("conversation_history").isArray()
+                                && s.input().path("conversation_history").size() > 0)
+                        .params(s -> {
+                            ObjectNode rp = mapper.createObjectNode();
+                            rp.put("message", s.input().path("message").asText(""));
+                            rp.set("conversation_history", s.input().path("conversation_history"));
+                            return rp;
+                        })
+                        // Classify without history context rather than not at all
+                        .fallback(ex -> NullNode.getInstance()))
+                .node(FlowNode.call("classify", "ai.chat")
+                        .after("rag")
+                        .timeout(CLASSIFY_TIMEOUT)
+                        .params(this::classifierParams)
+                        // If the provider is unavailable during classification, fall back to the safe reply path
+                        .fallback(ex -> NullNode.getInstance()))
+                .node(FlowNode.call("summary", "health.summary")
+                        // Summarizes the authenticated user only; anonymous callers get no summary
+                        .after("classify")
+                        .when(s -> s.input().path("include_health_summary").asBoolean(true)
+                                && parsed(classification(s)) && !"ai.chat".equals(routeTool(s)))
+                        .params(s -> mapper.createObjectNode())
+                        .fallback(ex -> NullNode.getInstance()))
+                .node(FlowNode.call("route", this::routeTool)
+                        .after("classify", "rag", "summary")
+                        .when(s -> parsed(classification(s)))
+                        .params(this::routeParams)
+                        .fallback(ex -> {
+                            ObjectNode out = mapper.createObjectNode();
+                            out.put("text", buildProviderDownMessage(ex));
+                            out.put("model", "error");
+                            out.put("tokensUsed", 0);
+                            return out;
+                        }))
+                .output(this::output)
+                .build();
     }
 
-    private JsonNode runClassifier(String userId, String message, String context, McpContext ctx) {
+    private JsonNode classifierParams(FlowState s) {
         String classifier = prompts.get("message_classifier_prompt.txt");
         if (classifier == null) classifier = "";
         String master = prompts.get("master_prompt.txt");
+        String context = s.result("rag").path("context").asText("");
         StringBuilder sb = new StringBuilder();
         if (master != null && !master.isBlank()) {
             sb.append(master.trim()).append("\n\n");
         }
         sb.append(classifier.trim()).append("\n\n");
-        if (context != null && !context.isBlank()) {
+        if (!context.isBlank()) {
             sb.append("[Context]\n").append(context.trim()).append("\n\n");
         }
-        sb.append("[Message]\n").append(message);
+        sb.append("[Message]\n").append(s.input().path("message").asText(""));
 
         ObjectNode chatParams = mapper.createObjectNode();
-        chatParams.put("user_id", userId);
+        chatParams.put("user_id", s.input().path("user_id").asText(""));
         chatParams.put("message", sb.toString());
-        JsonNode result;
-        try {
-            result = registryProvider.getObject().call("ai.chat", chatParams, ctx).join();
-        } catch (RuntimeException ex) {
-            // If the provider is unavailable during classification, fall back to null to trigger safe reply path
-            return null;
+        return chatParams;
+    }
+
+    private String routeTool(FlowState s) {
+        JsonNode classification = classification(s);
+        String msgType = classification.path("message_type").asText("").toLowerCase(Locale.ROOT);
+        if (!msgType.isBlank() && catalog.find("route-" + msgType).isPresent()) {
+            return "flow.run";
         }
-        if (result == null) return null;
-        String text = result.path("text").asText("");
-        if (text == null || text.isBlank()) return null;
+        return mapRouteToTool(classification.path("route_to").asText(""), msgType, s.input().path("message").asText(""));
+    }
+
+    private JsonNode routeParams(FlowState s) {
+        String tool = routeTool(s);
+        String userId = s.input().path("user_id").asText("");
+        ObjectNode callParams = mapper.createObjectNode();
+        callParams.put("user_id", userId);
+        callParams.put("message", s.input().path("message").asText(""));
+        // For ai.chat we don't pass context
+        if (!"ai.chat".equals(tool)) {
+            String context = joinContext(s.result("rag").path("context").asText(""),
+                    s.result("summary").path("context").asText(""));
+            if (!context.isBlank()) callParams.put("context", context);
+        }
+        if ("flow.run".equals(tool)) {
+            ObjectNode run = mapper.createObjectNode();
+            run.put("flow", "route-" + classification(s).path("message_type").asText("").toLowerCase(Locale.ROOT));
+            run.set("input", callParams);
+            return run;
+        }
+        return callParams;
+    }
+
+    private JsonNode output(FlowState s) {
+        JsonNode classification = classification(s);
+        // If classification failed, or says parsed=false => treat as QUERY per master_prompt lines 43-46
+        if (!parsed(classification)) {
+            String reply = classification.path("reply").asText("");
+            if (reply == null || reply.isBlank()) {
+                reply = buildSafeQueryReply(s.input().path("message").asText(""));
+            } else {
+                reply = enforceReplyRules(reply);
+            }
+            ObjectNode out = mapper.createObjectNode();
+            out.put("text", reply);
+            out.put("model", "classifier");
+            out.put("tokensUsed", 0);
+            return out;
+        }
+        return s.result("route");
+    }
+
+    // The classifier answers with JSON in the chat text; anything else counts as unparsed
+    private JsonNode classification(FlowState s) {
+        String text = s.result("classify").path("text").asText("");
+        if (text.isBlank()) return NullNode.getInstance();
         try {
             return mapper.readTree(text);
         } catch (Exception ex) {
-            return null;
+            return NullNode.getInstance();
         }
     }
 
+    private static boolean parsed(JsonNode classification) {
+        return classification != null && classification.path("parsed").asBoolean(false);
+    }
+
+    private static String joinContext(String rag, String summary) {
+        if (summary.isBlank()) return rag;
+        if (rag.isBlank()) return summary;
+        return rag.trim() + "\n\n" + summary;
+    }
+
     private String mapRouteToTool(String routeTo, String msgType, String message) {
         String rt = routeTo == null ? "" : routeTo.toLowerCase(Locale.ROOT);
         String mt = msgType == null ? "" : msgType.toLowerCase(Locale.ROOT);
@@ -171,7 +265,7 @@ public class RoutingTool implements McpTool {
         return reply;
     }
 
-    private String buildProviderDownMessage(Exception ex) {
+    private String buildProviderDownMessage(Throwable ex) {
         // Keep the message simple and user-friendly; avoid leaking internal error details
         return "The AI service is temporarily unavailable. Please try again in a minute. Your message has been saved.";
     }
@@ -7,13 +7,27 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class PromptLoader {
 
+    // Prompts are classpath resources and never change while running. Only found files are kept, so
+    // lookups of arbitrary names cannot grow the map.
+    private final Map<String, String> loaded = new ConcurrentHashMap<>();
+
     public String get(String filename) {
+        String cached = loaded.get(filename);
+        if (cached != null) return cached;
+        String content = read(filename);
+        if (content != null) loaded.put(filename, content);
+        return content;
+    }
+
+    private String read(String filename) {
         try {
             ClassPathResource res = new ClassPathResource("prompts/" + filename);
             if (!res.exists()) return null;
@@ -0,0 +1,37 @@
+package com.hidoc.mcp.web;
+
+import com.hidoc.mcp.core.McpCapabilities;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * The server's capability document (protocol version, server info, tools with their schemas, prompts and
+ * resources) in one response, so an agent can start without probing. Clients revalidate with If-None-Match
+ * and get 304 while the server is unchanged.
+ */
+@RestController
+public class McpCapabilitiesController {
+
+    private final McpCapabilities capabilities;
+
+    public McpCapabilitiesController(McpCapabilities capabilities) {
+        this.capabilities = capabilities;
+    }
+
+    @GetMapping(path = "/mcp/capabilities", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> capabilities(WebRequest request) {
+        if (request.checkNotModified(capabilities.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(capabilities.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(capabilities.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(capabilities.document());
+    }
+}
@@ -3,62 +3,69 @@ package com.hidoc.mcp.web;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hidoc.api.admission.RequestPriority;
+import com.hidoc.mcp.core.JsonRpcDispatcher;
 import com.hidoc.mcp.core.McpContext;
-import com.hidoc.mcp.core.ToolRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.security.Principal;
 import java.time.Instant;
+import java.util.OptionalLong;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
+/**
+ * One-shot JSON-RPC 2.0 endpoint for MCP tools; see {@link JsonRpcDispatcher} for batch and notification
+ * handling. A batch of only notifications returns 204. Single requests without an id are still answered,
+ * as before, under a generated id. A single call shed by admission control is answered with 429 and
+ * Retry-After.
+ */
 @RestController
 @RequestMapping(path = "/mcp/jsonrpc")
 public class McpJsonRpcController {
 
     private final ObjectMapper mapper;
-    private final ToolRegistry registry;
+    private final JsonRpcDispatcher dispatcher;
 
-    public McpJsonRpcController(ObjectMapper mapper, ToolRegistry registry) {
+    public McpJsonRpcController(ObjectMapper mapper, JsonRpcDispatcher dispatcher) {
         this.mapper = mapper;
-        this.registry = registry;
+        this.dispatcher = dispatcher;
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public CompletableFuture<ObjectNode> handle(@RequestBody ObjectNode request,
-                                               @RequestHeader(value = "X-User-Id", required = false) String userId) {
-        String id = request.path("id").asText(UUID.randomUUID().toString());
-        String method = request.path("method").asText(null);
-        JsonNode params = request.path("params");
-        if (method == null) {
-            return CompletableFuture.completedFuture(error(id, -32600, "Invalid Request: missing method"));
+    public DeferredResult<ResponseEntity<JsonNode>> handle(@RequestBody JsonNode request, Principal principal) {
+        // Tools act for the authenticated user only; a client-supplied user header is not trusted
+        McpContext ctx = new McpContext("http:jsonrpc", Instant.now(), mapper, McpPrincipals.userId(principal))
+                .withPriority(RequestPriority.BACKGROUND);
+        if (request instanceof ObjectNode single && !single.hasNonNull("id")) {
+            single.put("id", UUID.randomUUID().toString());
         }
-        McpContext ctx = new McpContext("http:jsonrpc", Instant.now(), mapper, userId);
-        return registry.call(method, params, ctx)
-                .thenApply(result -> success(id, result))
-                .exceptionally(ex -> error(id, -32000, ex.getMessage()));
+        DeferredResult<ResponseEntity<JsonNode>> out = new DeferredResult<>();
+        // Nobody will read the response any more: stop the calls instead of letting them run to completion
+        out.onTimeout(() -> ctx.getCancellation().cancel("Request timed out"));
+        out.onError(e -> ctx.getCancellation().cancel("Client disconnected"));
+        dispatcher.handle(request, ctx, null).whenComplete((result, ex) -> {
+            if (ex != null) out.setErrorResult(ex);
+            else out.setResult(respond(result));
+        });
+        return out;
     }
 
-    private ObjectNode success(String id, JsonNode result) {
-        ObjectNode resp = mapper.createObjectNode();
-        resp.put("jsonrpc", "2.0");
-        resp.put("id", id);
-        resp.set("result", result == null ? mapper.createObjectNode() : result);
-        return resp;
-    }
-
-    private ObjectNode error(String id, int code, String message) {
-        ObjectNode resp = mapper.createObjectNode();
-        resp.put("jsonrpc", "2.0");
-        resp.put("id", id);
-        ObjectNode err = mapper.createObjectNode();
-        err.put("code", code);
-        err.put("message", message);
-        resp.set("error", err);
-        return resp;
+    private static ResponseEntity<JsonNode> respond(JsonNode result) {
+        if (result == null) return ResponseEntity.noContent().build();
+        OptionalLong retryAfter = JsonRpcDispatcher.retryAfterSeconds(result);
+        if (retryAfter.isPresent()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.getAsLong()))
+                    .body(result);
+        }
+        return ResponseEntity.ok(result);
     }
 }
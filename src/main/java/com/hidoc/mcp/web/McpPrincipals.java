@@ -0,0 +1,23 @@
+package com.hidoc.mcp.web;
+
+import com.hidoc.api.security.UserInfo;
+import org.springframework.security.core.Authentication;
+
+import java.security.Principal;
+
+final class McpPrincipals {
+
+    private McpPrincipals() {}
+
+    // Authentication.getName() is not stable for UserInfo principals, so read the user id directly
+    static String userId(Principal principal) {
+        if (principal instanceof Authentication auth) {
+            Object p = auth.getPrincipal();
+            if (p instanceof UserInfo u) return u.getUserId();
+            if (p instanceof org.springframework.security.core.userdetails.UserDetails ud) return ud.getUsername();
+            if (p instanceof String s && !s.isBlank()) return s;
+            return null;
+        }
+        return principal == null ? null : principal.getName();
+    }
+}
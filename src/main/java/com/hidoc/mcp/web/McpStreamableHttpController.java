@@ -0,0 +1,129 @@
+package com.hidoc.mcp.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hidoc.api.admission.RequestPriority;
+import com.hidoc.mcp.core.JsonRpcDispatcher;
+import com.hidoc.mcp.core.McpContext;
+import com.hidoc.mcp.core.McpSession;
+import com.hidoc.mcp.core.McpSessionRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * MCP streamable HTTP transport. The first POST opens a session and returns its id in the Mcp-Session-Id
+ * header; later requests that send it back reuse the session's context and can cancel each other's calls.
+ * Clients that accept text/event-stream get progress notifications followed by the response on one SSE
+ * stream; others get a plain JSON response. DELETE ends the session and cancels its calls.
+ */
+@RestController
+@RequestMapping(path = "/mcp")
+public class McpStreamableHttpController {
+
+    static final String SESSION_HEADER = "Mcp-Session-Id";
+
+    private final ObjectMapper mapper;
+    private final JsonRpcDispatcher dispatcher;
+    private final McpSessionRegistry sessions;
+
+    @Value("${mcp.sse.timeout-ms:120000}")
+    private long sseTimeoutMs = 120_000;
+
+    public McpStreamableHttpController(ObjectMapper mapper, JsonRpcDispatcher dispatcher, McpSessionRegistry sessions) {
+        this.mapper = mapper;
+        this.dispatcher = dispatcher;
+        this.sessions = sessions;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Object handle(@RequestBody JsonNode request,
+                         @RequestHeader(value = SESSION_HEADER, required = false) String sessionId,
+                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                         Principal principal, HttpServletResponse response) {
+        String owner = McpPrincipals.userId(principal);
+        McpSession session;
+        if (sessionId == null) {
+            // The session acts as its owner; a client-supplied user header is not trusted
+            session = sessions.create(owner, id -> new McpContext("http:stream:" + id, Instant.now(), mapper, owner)
+                    .withPriority(RequestPriority.BACKGROUND));
+        } else {
+            Optional<McpSession> existing = sessions.find(sessionId, owner);
+            if (existing.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            session = existing.get();
+        }
+        response.setHeader(SESSION_HEADER, session.getId());
+
+        if (!dispatcher.expectsResponse(request)) {
+            dispatcher.handle(request, session.getContext(), session);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+        }
+        if (accept == null || !accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE)) {
+            return dispatcher.handle(request, session.getContext(), session).thenApply(result -> {
+                OptionalLong retryAfter = JsonRpcDispatcher.retryAfterSeconds(result);
+                ResponseEntity.BodyBuilder reply = retryAfter.isPresent()
+                        ? ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.getAsLong()))
+                        : ResponseEntity.ok();
+                return reply.contentType(MediaType.APPLICATION_JSON).body(result);
+            });
+        }
+
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        McpContext ctx = session.getContext().withNotifier(msg -> send(emitter, msg));
+        CompletableFuture<JsonNode> result = dispatcher.handle(request, ctx, session);
+        result.whenComplete((reply, ex) -> {
+            if (reply != null) send(emitter, reply);
+            emitter.complete();
+        });
+        // A client that drops the stream will never read the result
+        emitter.onTimeout(() -> cancelCalls(request, session));
+        emitter.onError(e -> cancelCalls(request, session));
+        return emitter;
+    }
+
+    @GetMapping
+    public ResponseEntity<Void> stream() {
+        // Server-initiated messages only occur while a request is running, on that request's stream
+        return ResponseEntity.status(HttpStatus.METHOD_NOT_ALLOWED).build();
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> close(@RequestHeader(value = SESSION_HEADER) String sessionId, Principal principal) {
+        return sessions.close(sessionId, McpPrincipals.userId(principal))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    private static void cancelCalls(JsonNode request, McpSession session) {
+        if (request.isArray()) {
+            request.forEach(call -> session.cancel(call.get("id")));
+        } else {
+            session.cancel(request.get("id"));
+        }
+    }
+
+    private static void send(SseEmitter emitter, JsonNode message) {
+        try {
+            synchronized (emitter) {
+                emitter.send(SseEmitter.event().name("message").data(message, MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the call is cancelled by onError/onTimeout
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.hidoc.mcp.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.hidoc.api.admission.RequestPriority;
+import com.hidoc.mcp.core.JsonRpcDispatcher;
+import com.hidoc.mcp.core.McpContext;
+import com.hidoc.mcp.core.McpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MCP over WebSocket: one JSON-RPC message (or batch) per text frame. Each connection keeps one
+ * {@link McpSession}, so the context is built once per connection, progress notifications are pushed as
+ * they happen and notifications/cancelled can stop calls still in flight. Closing the socket cancels them.
+ */
+@Component
+public class McpWebSocketHandler extends TextWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(McpWebSocketHandler.class);
+
+    private final ObjectMapper mapper;
+    private final JsonRpcDispatcher dispatcher;
+    private final Map<String, McpSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, WebSocketSession> sockets = new ConcurrentHashMap<>();
+
+    @Value("${mcp.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs = 10_000;
+
+    @Value("${mcp.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit = 512 * 1024;
+
+    public McpWebSocketHandler(ObjectMapper mapper, JsonRpcDispatcher dispatcher) {
+        this.mapper = mapper;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession raw) {
+        // Responses complete on tool threads, so sends must be serialized
+        WebSocketSession socket = new ConcurrentWebSocketSessionDecorator(raw, sendTimeLimitMs, sendBufferSizeLimit);
+        String owner = McpPrincipals.userId(raw.getPrincipal());
+        // The connection acts as its owner; a client-supplied user header is not trusted
+        McpContext ctx = new McpContext("ws:" + raw.getId(), Instant.now(), mapper, owner, msg -> send(socket, msg))
+                .withPriority(RequestPriority.BACKGROUND);
+        sockets.put(raw.getId(), socket);
+        sessions.put(raw.getId(), new McpSession(raw.getId(), owner, ctx));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession raw, TextMessage message) {
+        McpSession session = sessions.get(raw.getId());
+        WebSocketSession socket = sockets.get(raw.getId());
+        if (session == null || socket == null) return;
+        session.touch();
+        JsonNode request;
+        try {
+            request = mapper.readTree(message.getPayload());
+        } catch (JsonProcessingException e) {
+            send(socket, dispatcher.error(NullNode.getInstance(), -32700, "Parse error"));
+            return;
+        }
+        dispatcher.handle(request, session.getContext(), session).thenAccept(reply -> {
+            if (reply != null) send(socket, reply);
+        });
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession raw, CloseStatus status) {
+        sockets.remove(raw.getId());
+        McpSession session = sessions.remove(raw.getId());
+        if (session != null) {
+            session.cancelAll();
+        }
+    }
+
+    private void send(WebSocketSession socket, JsonNode message) {
+        if (!socket.isOpen()) return;
+        try {
+            socket.sendMessage(new TextMessage(mapper.writeValueAsString(message)));
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to send MCP message on {}: {}", socket.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+-- Migration: Use analytics_summary for incremental hourly/daily rollups of usage_tracking
+-- 1) Granularity of the rolled-up period (HOUR or DAY)
+ALTER TABLE analytics_summary ADD COLUMN IF NOT EXISTS granularity VARCHAR(10) NOT NULL DEFAULT 'HOUR';
+
+-- 2) One row per metric, granularity, period and dimensions; lets concurrent rollup runs insert idempotently
+CREATE UNIQUE INDEX IF NOT EXISTS uq_analytics_summary_period
+    ON analytics_summary (metric_type, granularity, period_start, COALESCE(dimension_1, ''), COALESCE(dimension_2, ''));
+
+-- 3) Range lookups by metric and granularity
+CREATE INDEX IF NOT EXISTS idx_analytics_summary_lookup
+    ON analytics_summary (metric_type, granularity, period_start, period_end);
@@ -0,0 +1,7 @@
+-- Migration: Store mergeable HyperLogLog sketches of distinct users alongside the rollups
+-- 1) Serialized sketch for 'unique_users' rows; metric_value holds the distinct count of that single period
+ALTER TABLE analytics_summary ADD COLUMN IF NOT EXISTS sketch BYTEA NULL;
+
+-- 2) Rollups are derived data: drop the ones written without sketches so the job rebuilds every period
+--    with all metrics; until it catches up, reads fall back to live queries
+DELETE FROM analytics_summary WHERE granularity IN ('HOUR', 'DAY') AND metric_type IN ('requests', 'requests_by_provider');
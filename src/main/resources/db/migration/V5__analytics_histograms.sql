@@ -0,0 +1,17 @@
+-- Migration: Mergeable latency/token histograms per provider, model and tool
+-- Each instance keeps one row per series and hour, rewritten on every flush; readers merge rows across instances
+CREATE TABLE IF NOT EXISTS analytics_histograms (
+    id BIGSERIAL PRIMARY KEY,
+    metric_type VARCHAR(50) NOT NULL,
+    provider VARCHAR(50) NOT NULL,
+    model VARCHAR(100) NOT NULL,
+    tool VARCHAR(100) NOT NULL,
+    instance_id VARCHAR(64) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    sample_count BIGINT NOT NULL,
+    histogram BYTEA NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uq_analytics_histograms_series UNIQUE (metric_type, provider, model, tool, instance_id, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_analytics_histograms_lookup ON analytics_histograms (metric_type, bucket_start);
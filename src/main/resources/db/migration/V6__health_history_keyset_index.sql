@@ -0,0 +1,4 @@
+-- Migration: Support keyset pagination of health history on (timestamp, id)
+-- The new index covers the old (user_id, timestamp) prefix, so that one is dropped
+CREATE INDEX IF NOT EXISTS idx_health_user_time_id ON health_data_entries(user_id, timestamp, id);
+DROP INDEX IF EXISTS idx_health_user_time;
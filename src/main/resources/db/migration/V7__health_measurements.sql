@@ -0,0 +1,20 @@
+-- Migration: Typed numeric health measurements, parsed once when an entry is saved
+CREATE TABLE IF NOT EXISTS health_measurements (
+    id BIGSERIAL PRIMARY KEY,
+    entry_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    metric VARCHAR(32) NOT NULL,
+    value DOUBLE PRECISION NOT NULL,
+    value2 DOUBLE PRECISION NULL,
+    unit VARCHAR(16) NOT NULL,
+    measured_at TIMESTAMP NOT NULL,
+    CONSTRAINT uq_health_measurements_entry UNIQUE (entry_id),
+    CONSTRAINT fk_measurement_entry FOREIGN KEY (entry_id) REFERENCES health_data_entries(id) ON DELETE CASCADE
+);
+
+-- Per-user series lookups; the values are included so trend queries are index-only scans
+CREATE INDEX IF NOT EXISTS idx_measurements_user_metric_time
+    ON health_measurements (user_id, metric, measured_at) INCLUDE (value, value2);
+
+-- Rows arrive roughly in time order, so a BRIN index keeps cross-user time-range scans cheap at a tiny size
+CREATE INDEX IF NOT EXISTS idx_measurements_time_brin ON health_measurements USING BRIN (measured_at);
@@ -0,0 +1,16 @@
+-- Migration: Native uuid primary key for health_data_entries; new ids are time-ordered UUIDv7
+-- 1) Detach measurements while both key columns change type
+ALTER TABLE health_measurements DROP CONSTRAINT IF EXISTS fk_measurement_entry;
+
+-- 2) Ids that are not UUIDs (client-supplied) are mapped to a stable md5-based UUID
+UPDATE health_measurements SET entry_id = CAST(CAST(md5(entry_id) AS uuid) AS VARCHAR)
+    WHERE entry_id !~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$';
+UPDATE health_data_entries SET id = CAST(CAST(md5(id) AS uuid) AS VARCHAR)
+    WHERE id !~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$';
+
+-- 3) 16-byte keys instead of 36+ byte strings in the primary key and every index that carries it
+ALTER TABLE health_data_entries ALTER COLUMN id TYPE uuid USING CAST(id AS uuid);
+ALTER TABLE health_measurements ALTER COLUMN entry_id TYPE uuid USING CAST(entry_id AS uuid);
+
+ALTER TABLE health_measurements ADD CONSTRAINT fk_measurement_entry
+    FOREIGN KEY (entry_id) REFERENCES health_data_entries(id) ON DELETE CASCADE;
@@ -0,0 +1,14 @@
+-- Migration: Append-only usage events for analytics rollups
+-- usage_tracking holds one upserted row per user and month, so it cannot say how many requests fell in an
+-- hour or who made them; every recorded request also appends one row here.
+CREATE TABLE IF NOT EXISTS usage_events (
+    id BIGSERIAL PRIMARY KEY,
+    -- email when known, else the legacy user_id
+    user_key VARCHAR(255) NOT NULL,
+    ai_provider VARCHAR(50) NOT NULL,
+    success BOOLEAN NOT NULL,
+    occurred_at TIMESTAMP NOT NULL
+);
+
+-- Rows arrive in time order and are only read by time range
+CREATE INDEX IF NOT EXISTS idx_usage_events_time_brin ON usage_events USING BRIN (occurred_at);